@@ -0,0 +1,260 @@
+/**
+ * AssetHeaderAudit.java
+ *
+ * HTTP caching and compression headers of the static assets (scripts, styles,
+ * fonts, images) the crawled pages load.
+ *
+ * Distinct asset URLs are gathered from each page's DevTools network events
+ * during the crawl; afterwards every asset is probed once, concurrently, with
+ * `Accept‑Encoding: br, gzip`, recording Content‑Encoding, Cache‑Control,
+ * ETag / Last‑Modified, Vary and the transferred vs. uncompressed size.
+ *
+ * Wasted bytes per repeat visit = transferred bytes × chance the browser cache
+ * no longer holds a fresh copy (from the max‑age / Expires lifetime); 0 when
+ * an ETag or Last‑Modified lets the browser revalidate with a 304. Text
+ * assets served uncompressed also get the bytes gzip would save on every
+ * download, used as the tie‑breaker in the ranking.
+ *
+ * Tuning (system properties)
+ *   • assets.concurrency – parallel probes (default 16)
+ */
+import org.apache.poi.ss.usermodel.*;
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class AssetHeaderAudit {
+
+    static final int CONCURRENCY = Integer.getInteger("assets.concurrency", 16);
+
+    private static final Set<String> ASSET_TYPES = new HashSet<>(Arrays.asList("Script", "Stylesheet", "Font", "Image"));
+    private static final Pattern MAX_AGE = Pattern.compile("(?:^|[,\\s])max-age\\s*=\\s*(\\d+)");
+    private static final long DAY_S = TimeUnit.DAYS.toSeconds(1);
+
+    /** Headers and sizes of one probed asset. */
+    static class Asset {
+        final String url;
+        final String type;
+        final Set<String> pages = new LinkedHashSet<>();
+        int status;
+        String contentType = "";
+        String contentEncoding = "";
+        String cacheControl = "";
+        String vary = "";
+        boolean validator;
+        long ttlSeconds;
+        long transferBytes;
+        long uncompressedBytes;
+        long compressionWaste;
+        long cacheWaste;
+        final List<String> issues = new ArrayList<>();
+        String error;
+
+        Asset(String url, String type) {
+            this.url = url;
+            this.type = type;
+        }
+
+        long wasted() {
+            return cacheWaste;
+        }
+    }
+
+    private final Map<String, Asset> assets = new LinkedHashMap<>();
+    private final HttpClient client = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    /* ─────────────────────── Gathering ─────────────────────── */
+
+    /** Adds the script / style / font / image URLs a page loaded over HTTP(S). */
+    void record(String pageUrl, List<JSONObject> events) {
+        for (JSONObject event : events) {
+            if (!"Network.responseReceived".equals(event.optString("method"))) {
+                continue;
+            }
+            JSONObject params = event.optJSONObject("params");
+            String type = params == null ? "" : params.optString("type");
+            JSONObject response = params == null ? null : params.optJSONObject("response");
+            if (response == null || !ASSET_TYPES.contains(type) || !response.optString("url").startsWith("http")) {
+                continue;
+            }
+            assets.computeIfAbsent(response.getString("url"), u -> new Asset(u, type)).pages.add(pageUrl);
+        }
+    }
+
+    /* ─────────────────────── Probing ─────────────────────── */
+
+    /** Probes every gathered asset once, CONCURRENCY at a time. */
+    void probeAll() throws InterruptedException {
+        System.out.println("📦 Probing " + assets.size() + " distinct assets…");
+        ExecutorService pool = Executors.newFixedThreadPool(CONCURRENCY);
+        for (Asset asset : assets.values()) {
+            pool.submit(() -> probe(asset));
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.HOURS);
+    }
+
+    void probe(Asset asset) {
+        try {
+            HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(URI.create(asset.url))
+                    .header("Accept-Encoding", "br, gzip")
+                    .timeout(Duration.ofSeconds(30))
+                    .GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+            HttpHeaders headers = response.headers();
+            asset.status = response.statusCode();
+            asset.contentType = headers.firstValue("Content-Type").orElse("").toLowerCase();
+            asset.contentEncoding = headers.firstValue("Content-Encoding").orElse("").toLowerCase();
+            asset.cacheControl = headers.firstValue("Cache-Control").orElse("").toLowerCase();
+            asset.vary = headers.firstValue("Vary").orElse("");
+            asset.validator = headers.firstValue("ETag").isPresent() || headers.firstValue("Last-Modified").isPresent();
+            asset.ttlSeconds = ttlSeconds(headers);
+            asset.transferBytes = response.body().length;
+            asset.uncompressedBytes = uncompressedSize(asset, response.body());
+            assess(asset, response.body());
+        } catch (Exception e) {
+            asset.error = e.getMessage();
+        }
+    }
+
+    private long uncompressedSize(Asset asset, byte[] body) throws IOException, InterruptedException {
+        if (asset.contentEncoding.contains("gzip")) {
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                return in.readAllBytes().length;
+            }
+        }
+        if (asset.contentEncoding.isEmpty()) {
+            return body.length;
+        }
+        // Brotli (or anything else the JDK cannot decode) – ask for the identity encoding instead
+        return client.send(HttpRequest.newBuilder(URI.create(asset.url))
+                .header("Accept-Encoding", "identity")
+                .timeout(Duration.ofSeconds(30))
+                .GET().build(), HttpResponse.BodyHandlers.ofByteArray()).body().length;
+    }
+
+    // Freshness lifetime: no-store/no-cache → 0, then max-age, then Expires − Date
+    private static long ttlSeconds(HttpHeaders headers) {
+        String cacheControl = headers.firstValue("Cache-Control").orElse("").toLowerCase();
+        if (cacheControl.contains("no-store") || cacheControl.contains("no-cache")) {
+            return 0;
+        }
+        Matcher maxAge = MAX_AGE.matcher(cacheControl);
+        if (maxAge.find()) {
+            return Long.parseLong(maxAge.group(1));
+        }
+        try {
+            ZonedDateTime expires = ZonedDateTime.parse(headers.firstValue("Expires").orElse(""),
+                    DateTimeFormatter.RFC_1123_DATE_TIME);
+            ZonedDateTime date = headers.firstValue("Date")
+                    .map(d -> ZonedDateTime.parse(d, DateTimeFormatter.RFC_1123_DATE_TIME))
+                    .orElse(ZonedDateTime.now());
+            return Math.max(0, Duration.between(date, expires).getSeconds());
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    private static void assess(Asset asset, byte[] body) throws IOException {
+        // Caching
+        double missChance = asset.cacheControl.contains("no-store") ? 1
+                : asset.ttlSeconds >= 30 * DAY_S ? 0
+                : asset.ttlSeconds >= 7 * DAY_S ? 0.25
+                : asset.ttlSeconds >= DAY_S ? 0.5
+                : asset.ttlSeconds >= 3600 ? 0.8 : 1;
+        boolean revalidates = asset.validator && !asset.cacheControl.contains("no-store");
+        asset.cacheWaste = revalidates ? 0 : Math.round(missChance * asset.transferBytes);
+        if (asset.cacheControl.contains("no-store")) {
+            asset.issues.add("no-store");
+        } else if (asset.ttlSeconds < 30 * DAY_S) {
+            asset.issues.add(asset.ttlSeconds == 0 ? "no freshness lifetime" : "short max-age " + asset.ttlSeconds + " s");
+        }
+        if (!asset.validator) {
+            asset.issues.add("no ETag / Last-Modified");
+        }
+
+        // Compression
+        if (compressible(asset.contentType) && asset.contentEncoding.isEmpty() && asset.transferBytes > 1024) {
+            // Served as‑is, so the body is the uncompressed content – gzip it to see what was lost
+            ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+            try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+                out.write(body);
+            }
+            asset.compressionWaste = Math.max(0, asset.transferBytes - gzipped.size());
+            if (asset.compressionWaste > 0) {
+                asset.issues.add("not compressed");
+            }
+        }
+        if (!asset.contentEncoding.isEmpty() && !asset.vary.toLowerCase().contains("accept-encoding")) {
+            asset.issues.add("compressed without Vary: Accept-Encoding");
+        }
+        if (asset.vary.contains("*") || asset.vary.toLowerCase().contains("user-agent")) {
+            asset.issues.add("Vary: " + asset.vary + " fragments caches");
+        }
+    }
+
+    static boolean compressible(String contentType) {
+        return contentType.startsWith("text/") || contentType.contains("javascript") || contentType.contains("json")
+                || contentType.contains("xml") || contentType.contains("svg")
+                || contentType.contains("font/ttf") || contentType.contains("font/otf")
+                || contentType.contains("font-sfnt") || contentType.contains("vnd.ms-fontobject");
+    }
+
+    /* ─────────────────────── Report ─────────────────────── */
+
+    /** Writes an "Asset Headers" sheet, most wasted bytes per repeat visit first. */
+    void writeSheet(Workbook workbook) {
+        List<Asset> ranked = new ArrayList<>(assets.values());
+        ranked.sort(Comparator.comparingLong(Asset::wasted).reversed()
+                .thenComparing(Comparator.comparingLong((Asset a) -> a.compressionWaste).reversed()));
+
+        Sheet sheet = workbook.createSheet("Asset Headers");
+        String[] headers = {"Asset URL", "Type", "Status", "Content-Encoding", "Cache-Control", "Max Age (s)",
+                "Validator", "Vary", "Transferred KB", "Uncompressed KB", "Wasted KB / Repeat Visit",
+                "Compression Saving KB", "Pages", "Issues"};
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < headers.length; i++) {
+            header.createCell(i).setCellValue(headers[i]);
+        }
+        int rowNum = 1;
+        for (Asset a : ranked) {
+            Row row = sheet.createRow(rowNum++);
+            row.createCell(0).setCellValue(a.url);
+            row.createCell(1).setCellValue(a.type);
+            if (a.error != null) {
+                row.createCell(13).setCellValue("probe failed: " + a.error);
+                continue;
+            }
+            row.createCell(2).setCellValue(a.status);
+            row.createCell(3).setCellValue(a.contentEncoding.isEmpty() ? "none" : a.contentEncoding);
+            row.createCell(4).setCellValue(a.cacheControl);
+            row.createCell(5).setCellValue(a.ttlSeconds);
+            row.createCell(6).setCellValue(a.validator ? "yes" : "no");
+            row.createCell(7).setCellValue(a.vary);
+            row.createCell(8).setCellValue(a.transferBytes / 1024.0);
+            row.createCell(9).setCellValue(a.uncompressedBytes / 1024.0);
+            row.createCell(10).setCellValue(a.wasted() / 1024.0);
+            row.createCell(11).setCellValue(a.compressionWaste / 1024.0);
+            row.createCell(12).setCellValue(a.pages.size());
+            row.createCell(13).setCellValue(String.join("; ", a.issues));
+        }
+    }
+}
@@ -0,0 +1,439 @@
+/**
+ * AuditDaemon.java
+ *
+ * Long‑lived audit service: keeps warm headless Chrome instances and parsed
+ * sitemaps in memory and runs audit jobs submitted over a local HTTP API, so
+ * CI does not pay JVM start‑up, ChromeDriver launch and sitemap download on
+ * every run.
+ *
+ * API (bound to 127.0.0.1 only)
+ *   POST   /jobs        {"type": "csp|console|fonts|status",
+ *                        "sitemaps": [...], "urls": [...],
+ *                        "options": {"settleMs": 2000, "policy": [...], "rendered": false}}
+ *                       → 202 {"id": "…"}
+ *   GET    /jobs        → summaries of recent jobs
+ *   GET    /jobs/<id>   → status, progress and findings
+ *   DELETE /jobs/<id>   → cancel (queued jobs never start, running ones stop after the current page)
+ *   GET    /health      → idle browsers, queued jobs, cached sitemaps
+ *
+ * Tuning (system properties)
+ *   • daemon.port              – default 8787
+ *   • daemon.browsers          – warm Chrome instances = parallel jobs (default 2)
+ *   • daemon.sitemapTtlMinutes – how long a parsed sitemap is reused (default 30)
+ */
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.logging.LogType;
+import org.openqa.selenium.logging.LoggingPreferences;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+public class AuditDaemon {
+
+    static final int PORT = Integer.getInteger("daemon.port", 8787);
+    static final int BROWSERS = Integer.getInteger("daemon.browsers", 2);
+    static final long SITEMAP_TTL_MS = TimeUnit.MINUTES.toMillis(Integer.getInteger("daemon.sitemapTtlMinutes", 30));
+    static final int MAX_RETAINED_JOBS = 200;
+
+    enum Status { QUEUED, RUNNING, DONE, FAILED, CANCELLED }
+
+    /** One submitted audit and everything it has produced so far. */
+    static class Job {
+        final String id;
+        final String type;
+        final List<String> sitemaps;
+        final List<String> urls;
+        final JSONObject options;
+        final long createdAt = System.currentTimeMillis();
+        final List<JSONObject> findings = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger pagesDone = new AtomicInteger();
+        volatile int pagesTotal;
+        volatile Status status = Status.QUEUED;
+        volatile boolean cancelRequested;
+        volatile String error;
+        volatile long startedAt;
+        volatile long finishedAt;
+        volatile Future<?> future;
+
+        Job(String id, String type, List<String> sitemaps, List<String> urls, JSONObject options) {
+            this.id = id;
+            this.type = type;
+            this.sitemaps = sitemaps;
+            this.urls = urls;
+            this.options = options;
+        }
+
+        JSONObject summary() {
+            JSONObject json = new JSONObject();
+            json.put("id", id);
+            json.put("type", type);
+            json.put("status", status.name());
+            json.put("pagesDone", pagesDone.get());
+            json.put("pagesTotal", pagesTotal);
+            json.put("findings", findings.size());
+            json.put("createdAt", createdAt);
+            if (startedAt > 0) {
+                json.put("startedAt", startedAt);
+            }
+            if (startedAt > 0 && finishedAt > 0) {
+                json.put("durationMs", finishedAt - startedAt);
+            }
+            if (error != null) {
+                json.put("error", error);
+            }
+            return json;
+        }
+    }
+
+    /** A parsed sitemap and when it was fetched. */
+    static class CachedSitemap {
+        final List<String> urls;
+        final long fetchedAt;
+
+        CachedSitemap(List<String> urls, long fetchedAt) {
+            this.urls = urls;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
+    // One entry per browser slot; an empty slot lost its browser and gets a new one on the next take
+    private final BlockingQueue<Optional<ChromeDriver>> browsers = new LinkedBlockingQueue<>();
+    // Every browser started and not yet quit – including those held by running jobs – for the shutdown hook
+    private static final Set<ChromeDriver> started = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, CachedSitemap> sitemaps = new ConcurrentHashMap<>();
+    private final Map<String, Job> jobs = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final ThreadPoolExecutor runner = new ThreadPoolExecutor(BROWSERS, BROWSERS,
+            0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    public static void main(String[] args) throws Exception {
+        AuditDaemon daemon = new AuditDaemon();
+        System.out.println("🔥 Warming " + BROWSERS + " Chrome instances…");
+        for (int i = 0; i < BROWSERS; i++) {
+            daemon.browsers.add(Optional.of(createDriver()));
+        }
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), PORT), 0);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext("/jobs", daemon::handleJobs);
+        server.createContext("/health", daemon::handleHealth);
+        server.start();
+        System.out.println("✅ Audit daemon listening on http://127.0.0.1:" + PORT);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(0);
+            daemon.runner.shutdownNow();
+            try {
+                if (!daemon.runner.awaitTermination(30, TimeUnit.SECONDS)) {
+                    System.out.println("⚠️ Jobs still running at shutdown – quitting their browsers anyway");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (ChromeDriver driver : new ArrayList<>(started)) {
+                quit(driver);
+            }
+        }));
+    }
+
+    static ChromeDriver createDriver() {
+        System.setProperty("Webdriver.chrome.driver", System.getProperty("user.dir") + "/chromedriver");
+        ChromeOptions options = new ChromeOptions();
+        options.addArguments("--headless=new");
+        options.addArguments("--no-sandbox");
+        options.addArguments("--disable-dev-shm-usage");
+        LoggingPreferences logs = new LoggingPreferences();
+        logs.enable(LogType.BROWSER, Level.ALL);
+        logs.enable(LogType.PERFORMANCE, Level.ALL);
+        options.setCapability("goog:loggingPrefs", logs);
+        ChromeDriver driver = new ChromeDriver(options);
+        started.add(driver);
+        return driver;
+    }
+
+    /* ─────────────────────── HTTP API ─────────────────────── */
+
+    private void handleJobs(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            String id = path.length() > "/jobs/".length() ? path.substring("/jobs/".length()) : null;
+
+            if ("POST".equals(method) && id == null) {
+                JSONObject body = new JSONObject(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+                Job job = submit(body);
+                respond(exchange, 202, new JSONObject().put("id", job.id).toString());
+            } else if ("GET".equals(method) && id == null) {
+                JSONArray list = new JSONArray();
+                synchronized (jobs) {
+                    for (Job job : jobs.values()) {
+                        list.put(job.summary());
+                    }
+                }
+                respond(exchange, 200, list.toString());
+            } else if (id != null && jobs.containsKey(id)) {
+                Job job = jobs.get(id);
+                if ("DELETE".equals(method)) {
+                    cancel(job);
+                }
+                JSONObject json = job.summary();
+                synchronized (job.findings) {
+                    json.put("results", new JSONArray(job.findings));
+                }
+                respond(exchange, 200, json.toString());
+            } else {
+                respond(exchange, 404, new JSONObject().put("error", "unknown job or route").toString());
+            }
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, new JSONObject().put("error", e.getMessage()).toString());
+        } catch (Exception e) {
+            respond(exchange, 500, new JSONObject().put("error", String.valueOf(e.getMessage())).toString());
+        }
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        JSONObject json = new JSONObject();
+        json.put("idleBrowsers", browsers.size());
+        json.put("runningJobs", runner.getActiveCount());
+        json.put("queuedJobs", runner.getQueue().size());
+        json.put("cachedSitemaps", sitemaps.size());
+        respond(exchange, 200, json.toString());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /* ─────────────────────── Job runner ─────────────────────── */
+
+    Job submit(JSONObject body) {
+        String type = body.optString("type", "");
+        if (!Arrays.asList("csp", "console", "fonts", "status").contains(type)) {
+            throw new IllegalArgumentException("type must be one of csp, console, fonts, status");
+        }
+        Job job = new Job(String.valueOf(nextId.incrementAndGet()), type,
+                strings(body.optJSONArray("sitemaps")), strings(body.optJSONArray("urls")),
+                body.optJSONObject("options") != null ? body.optJSONObject("options") : new JSONObject());
+        if (job.sitemaps.isEmpty() && job.urls.isEmpty()) {
+            throw new IllegalArgumentException("give at least one of sitemaps or urls");
+        }
+
+        // Set before the job is visible to GET/DELETE, so cancel() never sees it without a future
+        job.future = runner.submit(() -> run(job));
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+            Iterator<Job> oldest = jobs.values().iterator();
+            while (jobs.size() > MAX_RETAINED_JOBS && oldest.hasNext()) {
+                Job candidate = oldest.next();
+                if (candidate.status != Status.QUEUED && candidate.status != Status.RUNNING) {
+                    oldest.remove();
+                }
+            }
+        }
+        System.out.println("📥 Job " + job.id + " queued: " + type);
+        return job;
+    }
+
+    void cancel(Job job) {
+        job.cancelRequested = true;
+        if (job.status == Status.QUEUED && job.future.cancel(false)) {
+            job.status = Status.CANCELLED;
+            job.finishedAt = System.currentTimeMillis();
+        }
+    }
+
+    private void run(Job job) {
+        if (job.cancelRequested) {
+            job.status = Status.CANCELLED;
+            job.finishedAt = System.currentTimeMillis();
+            return;
+        }
+        job.status = Status.RUNNING;
+        job.startedAt = System.currentTimeMillis();
+
+        ChromeDriver driver = null;
+        boolean holdsSlot = false;
+        try {
+            List<String> pages = new ArrayList<>(job.urls);
+            for (String sitemap : job.sitemaps) {
+                pages.addAll(sitemapUrls(sitemap));
+            }
+            job.pagesTotal = pages.size();
+
+            // Only browser audits take a warm Chrome from the pool
+            if (!"status".equals(job.type)) {
+                driver = acquireBrowser();
+                holdsSlot = true;
+            }
+            FontPolicy policy = job.options.optJSONArray("policy") != null
+                    ? FontPolicy.fromJson(job.options.optJSONArray("policy"))
+                    : FontVerification.loadPolicy();
+
+            for (String page : pages) {
+                if (job.cancelRequested || Thread.currentThread().isInterrupted()) {
+                    job.status = Status.CANCELLED;
+                    break;
+                }
+                try {
+                    auditPage(job, driver, policy, page);
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    // One bad page is a finding, not the end of the job
+                    job.findings.add(finding(page, "Audit Error", String.valueOf(e.getMessage())));
+                    if (driver != null && !isAlive(driver)) {
+                        System.out.println("♻️ Browser died on " + page + " – replacing it");
+                        quit(driver);
+                        driver = null;   // a failed start leaves an empty slot behind, not a dead browser
+                        driver = createDriver();
+                    }
+                }
+                job.pagesDone.incrementAndGet();
+            }
+            if (job.status == Status.RUNNING) {
+                job.status = Status.DONE;
+            }
+        } catch (InterruptedException e) {
+            job.status = Status.CANCELLED;
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            job.status = Status.FAILED;
+            job.error = e.getMessage();
+        } finally {
+            if (holdsSlot) {
+                releaseBrowser(driver);
+            }
+            job.finishedAt = System.currentTimeMillis();
+            System.out.println("🏁 Job " + job.id + " " + job.status + " – " + job.pagesDone.get() + " pages, "
+                    + job.findings.size() + " findings in " + (job.finishedAt - job.startedAt) + " ms");
+        }
+    }
+
+    /** A warm browser, or a new one when the slot taken had lost its browser. */
+    private ChromeDriver acquireBrowser() throws InterruptedException {
+        Optional<ChromeDriver> slot = browsers.take();
+        if (slot.isPresent()) {
+            return slot.get();
+        }
+        try {
+            return createDriver();
+        } catch (RuntimeException e) {
+            browsers.add(Optional.empty());
+            throw e;
+        }
+    }
+
+    // Resets the browser for the next job; one that cannot be reset goes back as an empty slot
+    private void releaseBrowser(ChromeDriver driver) {
+        Optional<ChromeDriver> slot = Optional.empty();
+        try {
+            if (driver != null) {
+                driver.get("about:blank");
+                slot = Optional.of(driver);
+            }
+        } catch (Exception e) {
+            System.out.println("♻️ Browser could not be reset – its slot will start a new one");
+            quit(driver);
+        } finally {
+            browsers.add(slot);
+        }
+    }
+
+    private static boolean isAlive(ChromeDriver driver) {
+        try {
+            driver.getWindowHandle();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static void quit(ChromeDriver driver) {
+        started.remove(driver);
+        try {
+            driver.quit();
+        } catch (Exception ignored) {
+            /* Already gone. */
+        }
+    }
+
+    private void auditPage(Job job, ChromeDriver driver, FontPolicy policy, String page) throws Exception {
+        if (driver != null) {
+            // Drop log entries left over from the previous page or job
+            driver.manage().logs().get(LogType.BROWSER);
+            driver.manage().logs().get(LogType.PERFORMANCE);
+        }
+        switch (job.type) {
+            case "csp":
+                for (String message : CSPChecker.findCSPErrors(driver, page)) {
+                    job.findings.add(finding(page, "CSP Error", message));
+                }
+                break;
+            case "console":
+                driver.get(page);
+                Thread.sleep(job.options.optLong("settleMs", 4000));
+                for (String[] error : ConsoleErrorLogger.collectConsoleErrors(driver)) {
+                    job.findings.add(finding(page, error[0], error[1]));
+                }
+                break;
+            case "fonts":
+                driver.get(page);
+                for (String[] violation : FontVerification.findFontViolations(driver, policy,
+                        job.options.optBoolean("rendered", false))) {
+                    job.findings.add(finding(page, "Font Policy",
+                            "<" + violation[0] + "> " + violation[1] + " " + violation[5]));
+                }
+                break;
+            default:
+                int status = Sitemap404Checker.getHttpStatusCode(page);
+                if (status < 200 || status >= 400) {
+                    job.findings.add(finding(page, "HTTP Status", String.valueOf(status)));
+                }
+        }
+    }
+
+    /** Sitemap URLs from the cache while fresh, otherwise fetched and cached again. */
+    List<String> sitemapUrls(String sitemap) {
+        CachedSitemap cached = sitemaps.get(sitemap);
+        if (cached == null || System.currentTimeMillis() - cached.fetchedAt > SITEMAP_TTL_MS) {
+            cached = new CachedSitemap(CSPChecker.readUrlsFromSitemap(sitemap), System.currentTimeMillis());
+            sitemaps.put(sitemap, cached);
+        }
+        return cached.urls;
+    }
+
+    private static JSONObject finding(String url, String type, String message) {
+        JSONObject json = new JSONObject();
+        json.put("url", url);
+        json.put("type", type);
+        json.put("message", message);
+        return json;
+    }
+
+    private static List<String> strings(JSONArray array) {
+        List<String> list = new ArrayList<>();
+        if (array != null) {
+            for (int i = 0; i < array.length(); i++) {
+                list.add(array.getString(i));
+            }
+        }
+        return list;
+    }
+}
@@ -0,0 +1,262 @@
+/**
+ * CSPAuditScheduler.java
+ *
+ * Continuous replacement for the fixed 40‑hour loop in CSPChecker.
+ *
+ * Instead of re‑crawling every sitemap URL in order, it keeps a priority queue
+ * of pages and audits them one at a time within a pages‑per‑hour budget:
+ *   • Pages whose sitemap <lastmod> moved since the last check go first
+ *   • Pages that newly fail, or could not be audited, are re‑checked within
+ *     minutes (backing off); a violation that is confirmed unchanged goes back
+ *     to the normal schedule so known issues do not eat the budget
+ *   • Everything else is re‑checked once it is older than the base interval
+ *
+ * Findings are rolled into a timestamped CSP_Errors_<millis>.xlsx report at a
+ * fixed interval, together with a coverage sheet for that period. A page
+ * re‑checked within one period lists each of its violations once.
+ *
+ * Tuning (system properties)
+ *   • csp.pagesPerHour    – audit budget             (default 240)
+ *   • csp.reportHours     – report interval          (default 4)
+ *   • csp.recheckHours    – base re‑check interval   (default 40)
+ *   • csp.failureMinutes  – first re‑check after a failure (default 10)
+ */
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openqa.selenium.WebDriver;
+
+import java.io.FileOutputStream;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class CSPAuditScheduler {
+
+    static final int PAGES_PER_HOUR      = Integer.getInteger("csp.pagesPerHour", 240);
+    static final long REPORT_INTERVAL_MS = TimeUnit.HOURS.toMillis(Integer.getInteger("csp.reportHours", 4));
+    static final long RECHECK_MS         = TimeUnit.HOURS.toMillis(Integer.getInteger("csp.recheckHours", 40));
+    static final long FAILURE_RECHECK_MS = TimeUnit.MINUTES.toMillis(Integer.getInteger("csp.failureMinutes", 10));
+    static final long MAX_FAILURE_BACKOFF_MS = TimeUnit.HOURS.toMillis(2);
+    static final long SITEMAP_REFRESH_MS = TimeUnit.HOURS.toMillis(6);
+
+    /** Audit state for one page; ordered in the queue by {@link #dueAt}. */
+    static class PageState {
+        final String url;
+        long lastmod;             // from the sitemap, 0 when unknown
+        long lastChecked;         // 0 = never audited
+        int consecutiveFailures;  // audits in a row that failed or found new violations
+        Set<String> knownErrors = Collections.emptySet();   // violations found by the last audit
+        long dueAt;
+
+        PageState(String url, long lastmod) {
+            this.url = url;
+            this.lastmod = lastmod;
+        }
+
+        /** Recomputes the due time from change, failure and staleness signals. */
+        void reschedule() {
+            if (consecutiveFailures > 0) {
+                long backoff = FAILURE_RECHECK_MS << Math.min(consecutiveFailures - 1, 10);
+                dueAt = lastChecked + Math.min(backoff, MAX_FAILURE_BACKOFF_MS);
+            } else if (lastChecked == 0 || lastmod > lastChecked) {
+                dueAt = lastChecked;  // new or changed since the last audit – due now
+            } else {
+                dueAt = lastChecked + RECHECK_MS;
+            }
+        }
+    }
+
+    // Earliest due first; ties go to failing pages, then to the most recently modified
+    private final PriorityQueue<PageState> queue = new PriorityQueue<>(
+            Comparator.comparingLong((PageState p) -> p.dueAt)
+                    .thenComparing(p -> -p.consecutiveFailures)
+                    .thenComparing(p -> -p.lastmod));
+    private final Map<String, PageState> pages = new HashMap<>();
+    // url + message → [url, message, first seen]; one row per violation per period
+    private final Map<String, String[]> findings = new LinkedHashMap<>();
+    private final Set<String> checkedThisPeriod = new HashSet<>();
+    private final Set<String> failedThisPeriod = new HashSet<>();
+    private WebDriver driver;
+
+    public static void main(String[] args) {
+        CSPAuditScheduler auditScheduler = new CSPAuditScheduler();
+        long auditIntervalMs = TimeUnit.HOURS.toMillis(1) / Math.max(1, PAGES_PER_HOUR);
+
+        // Single thread: audits, sitemap refreshes and reports never overlap
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.scheduleWithFixedDelay(guard(auditScheduler::refreshSitemaps),
+                0, SITEMAP_REFRESH_MS, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(guard(auditScheduler::auditNext),
+                0, auditIntervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(guard(auditScheduler::writeReport),
+                REPORT_INTERVAL_MS, REPORT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        System.out.println("⏱️ Auditing up to " + PAGES_PER_HOUR + " pages/hour, report every "
+                + TimeUnit.MILLISECONDS.toHours(REPORT_INTERVAL_MS) + "h");
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            scheduler.shutdown();
+            try {
+                if (!scheduler.awaitTermination(10, TimeUnit.SECONDS)) {
+                    scheduler.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                scheduler.shutdownNow();
+            }
+            auditScheduler.writeReport();
+            auditScheduler.quitDriver();
+        }));
+    }
+
+    // A periodic task that throws is silently cancelled, so log and carry on instead
+    private static Runnable guard(Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                System.out.println("❌ Scheduler error: " + e.getMessage());
+            }
+        };
+    }
+
+    /** Merges the current sitemap contents into the queue, picking up new and changed pages. */
+    synchronized void refreshSitemaps() {
+        int added = 0, changed = 0;
+        for (String sitemapUrl : CSPChecker.SITEMAP_URLS) {
+            for (Map.Entry<String, Long> entry : CSPChecker.readEntriesFromSitemap(sitemapUrl).entrySet()) {
+                PageState page = pages.get(entry.getKey());
+                if (page == null) {
+                    page = new PageState(entry.getKey(), entry.getValue());
+                    page.reschedule();
+                    pages.put(page.url, page);
+                    queue.add(page);
+                    added++;
+                } else if (entry.getValue() > page.lastmod) {
+                    queue.remove(page);
+                    page.lastmod = entry.getValue();
+                    page.reschedule();
+                    queue.add(page);
+                    changed++;
+                }
+            }
+        }
+        System.out.println("🗺️ Sitemaps refreshed: " + added + " new, " + changed + " changed, "
+                + pages.size() + " tracked");
+    }
+
+    /** Audits the most urgent page if one is due; otherwise this budget slot stays idle. */
+    synchronized void auditNext() {
+        PageState page = queue.peek();
+        long now = System.currentTimeMillis();
+        if (page == null || page.dueAt > now) {
+            return;
+        }
+        queue.poll();
+
+        boolean failed;
+        boolean recheckSoon;
+        try {
+            if (driver == null) {
+                driver = CSPChecker.createDriver();
+            }
+            List<String> errors = CSPChecker.findCSPErrors(driver, page.url);
+            for (String error : errors) {
+                addFinding(page.url, error);
+                System.out.println("❌ CSP Error found on: " + page.url);
+            }
+            failed = !errors.isEmpty();
+            Set<String> current = new HashSet<>(errors);
+            // Only new or changed violations need a quick confirmation; known ones follow the base interval
+            recheckSoon = failed && !current.equals(page.knownErrors);
+            page.knownErrors = current;
+            if (!failed) {
+                System.out.println("✅ No CSP error: " + page.url);
+            }
+        } catch (RuntimeException e) {
+            // Browser session is likely gone – start a fresh one on the next slot
+            System.out.println("❌ Error accessing: " + page.url + " - " + e.getMessage());
+            addFinding(page.url, "Page could not be audited: " + e.getMessage());
+            quitDriver();
+            failed = true;
+            recheckSoon = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queue.add(page);
+            return;
+        }
+
+        page.lastChecked = now;
+        page.consecutiveFailures = recheckSoon ? page.consecutiveFailures + 1 : 0;
+        page.reschedule();
+        queue.add(page);
+
+        checkedThisPeriod.add(page.url);
+        if (failed) {
+            failedThisPeriod.add(page.url);
+        }
+    }
+
+    private void addFinding(String url, String message) {
+        findings.putIfAbsent(url + "\t" + message, new String[]{url, message, new Date().toString()});
+    }
+
+    /** Writes the findings gathered since the previous report, then starts a new period. */
+    synchronized void writeReport() {
+        if (checkedThisPeriod.isEmpty()) {
+            return;
+        }
+        String fileName = "CSP_Errors_" + System.currentTimeMillis() + ".xlsx";
+        try (Workbook workbook = new XSSFWorkbook();
+             FileOutputStream out = new FileOutputStream(fileName)) {
+            Sheet sheet = workbook.createSheet("CSP_Errors");
+            Row headerRow = sheet.createRow(0);
+            headerRow.createCell(0).setCellValue("URL");
+            headerRow.createCell(1).setCellValue("CSP Error Message");
+            headerRow.createCell(2).setCellValue("Timestamp");
+
+            CellStyle style = workbook.createCellStyle();
+            style.setFillForegroundColor(IndexedColors.RED.getIndex());
+            style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            int rowNum = 1;
+            for (String[] finding : findings.values()) {
+                Row row = sheet.createRow(rowNum++);
+                for (int i = 0; i < finding.length; i++) {
+                    row.createCell(i).setCellValue(finding[i]);
+                    row.getCell(i).setCellStyle(style);
+                }
+            }
+
+            Sheet coverage = workbook.createSheet("Coverage");
+            String[][] summary = {
+                    {"Pages tracked", String.valueOf(pages.size())},
+                    {"Pages audited this period", String.valueOf(checkedThisPeriod.size())},
+                    {"Pages failing this period", String.valueOf(failedThisPeriod.size())},
+                    {"Still failing now", String.valueOf(pages.values().stream()
+                            .filter(p -> p.consecutiveFailures > 0 || !p.knownErrors.isEmpty()).count())}
+            };
+            for (int i = 0; i < summary.length; i++) {
+                Row row = coverage.createRow(i);
+                row.createCell(0).setCellValue(summary[i][0]);
+                row.createCell(1).setCellValue(summary[i][1]);
+            }
+
+            workbook.write(out);
+            System.out.println("✅ CSP report saved: " + fileName);
+        } catch (Exception e) {
+            System.out.println("❌ Error saving CSP report: " + e.getMessage());
+            return;
+        }
+        findings.clear();
+        checkedThisPeriod.clear();
+        failedThisPeriod.clear();
+    }
+
+    synchronized void quitDriver() {
+        if (driver != null) {
+            try {
+                driver.quit();
+            } catch (Exception ignored) {
+                /* Session already dead – nothing to clean up. */
+            }
+            driver = null;
+        }
+    }
+}
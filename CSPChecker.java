@@ -1,3 +1,4 @@
+import org.apache.poi.common.usermodel.HyperlinkType;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.openqa.selenium.*;
@@ -6,13 +7,19 @@ import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.logging.LogEntries;
 import org.openqa.selenium.logging.LogEntry;
 import org.openqa.selenium.logging.LogType;
+import org.json.JSONObject;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 import java.io.FileOutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.concurrent.*;
 public class CSPChecker {
@@ -20,13 +27,27 @@ public class CSPChecker {
     static Workbook workbook;
     static Sheet sheet;
     static int rowNum;
+    static List<ResultStore.Finding> findings;
+    static EvidenceCapture evidence;   // screenshot / DOM / HAR of pages with CSP errors
+    static final List<String> SITEMAP_URLS = Arrays.asList(
+            "https://www.a-lign.com/post-sitemap.xml",
+            "https://www.a-lign.com/page-sitemap.xml",
+            "https://www.a-lign.com/resource-sitemap.xml",
+            "https://www.a-lign.com/people-sitemap.xml",
+            "https://www.a-lign.com/service-sitemap.xml",
+            "https://www.a-lign.com/testimonials-sitemap.xml",
+            "https://www.a-lign.com/geo-location-sitemap.xml",
+            "https://www.a-lign.com/integration-type-sitemap.xml"
+    );
 
     public static void main(String[] args) {
+        // Sitemaps given on the command line replace the built-in list
+        List<String> sitemaps = args.length > 0 ? Arrays.asList(args) : SITEMAP_URLS;
 
         Runnable task = () -> {
             try {
                 setupDriver();
-                runCSPCheck();
+                runCSPCheck(sitemaps);
                 driver.quit();
             } catch (Exception e) {
                 System.out.println("❌ Scheduler error: " + e.getMessage());
@@ -47,6 +68,19 @@ public class CSPChecker {
         }));
     }
     public static void setupDriver() {
+        driver = createDriver(EvidenceCapture.ENABLED);
+        evidence = EvidenceCapture.ENABLED ? EvidenceCapture.openDefault() : null;
+        // Reinitialize workbook each time
+        workbook = new XSSFWorkbook();
+        sheet = workbook.createSheet("CSP_Errors");
+        rowNum = 0;
+        findings = new ArrayList<>();
+    }
+    public static WebDriver createDriver() {
+        return createDriver(false);
+    }
+    // networkLog adds the DevTools performance log, which the caller must then drain after every page
+    public static WebDriver createDriver(boolean networkLog) {
         System.setProperty("Webdriver.chrome.driver", System.getProperty("user.dir") + "/chromedriver");
         ChromeOptions options = new ChromeOptions();
         options.addArguments("--headless=new");
@@ -54,44 +88,43 @@ public class CSPChecker {
         options.addArguments("--disable-dev-shm-usage");
         org.openqa.selenium.logging.LoggingPreferences logPrefs = new org.openqa.selenium.logging.LoggingPreferences();
         logPrefs.enable(LogType.BROWSER, java.util.logging.Level.ALL);
+        if (networkLog) {
+            logPrefs.enable(LogType.PERFORMANCE, java.util.logging.Level.ALL);
+        }
         options.setCapability("goog:loggingPrefs", logPrefs);
-        driver = new ChromeDriver(options);
-        driver.manage().timeouts().implicitlyWait(10, TimeUnit.SECONDS);
-        // Reinitialize workbook each time
-        workbook = new XSSFWorkbook();
-        sheet = workbook.createSheet("CSP_Errors");
-        rowNum = 0;
+        WebDriver chrome = new ChromeDriver(options);
+        chrome.manage().timeouts().implicitlyWait(10, TimeUnit.SECONDS);
+        return chrome;
     }
-    public static void runCSPCheck() throws Exception {
+    public static void runCSPCheck(List<String> sitemaps) throws Exception {
         createHeader();
-        List<String> sitemapUrls = Arrays.asList(
-                "https://www.a-lign.com/post-sitemap.xml",
-                "https://www.a-lign.com/page-sitemap.xml",
-                "https://www.a-lign.com/resource-sitemap.xml",
-                "https://www.a-lign.com/people-sitemap.xml",
-                "https://www.a-lign.com/service-sitemap.xml",
-                "https://www.a-lign.com/testimonials-sitemap.xml",
-                "https://www.a-lign.com/geo-location-sitemap.xml",
-                "https://www.a-lign.com/integration-type-sitemap.xml"
-        );
-        for (String sitemapUrl : sitemapUrls) {
-            List<String> pageUrls = readUrlsFromSitemap(sitemapUrl);
-            for (String pageUrl : pageUrls) {
-                checkCSPForURL(pageUrl);
+        try {
+            for (String sitemapUrl : sitemaps) {
+                List<String> pageUrls = readUrlsFromSitemap(sitemapUrl);
+                for (String pageUrl : pageUrls) {
+                    checkCSPForURL(pageUrl);
+                }
+            }
+        } finally {
+            // Stops the writer threads even when the crawl fails, so the JVM can exit
+            if (evidence != null) {
+                evidence.close();
             }
         }
         // Save file with timestamp
-        String fileName = "CSP_Errors_" + System.currentTimeMillis() + ".xlsx";
+        String fileName = System.getProperty("user.dir") + "/CSP_Errors_" + System.currentTimeMillis() + ".xlsx";
         FileOutputStream out = new FileOutputStream(fileName);
         workbook.write(out);
         out.close();
         System.out.println("✅ CSP report saved: " + fileName);
+        ResultStore.recordRun("csp", findings);
     }
     public static void createHeader() {
         Row headerRow = sheet.createRow(rowNum++);
         headerRow.createCell(0).setCellValue("URL");
         headerRow.createCell(1).setCellValue("CSP Error Message");
         headerRow.createCell(2).setCellValue("Timestamp");
+        headerRow.createCell(3).setCellValue("Evidence");
     }
     public static List<String> readUrlsFromSitemap(String sitemapUrl) {
         List<String> urls = new ArrayList<>();
@@ -110,35 +143,99 @@ public class CSPChecker {
         }
         return urls;
     }
+    // Same as readUrlsFromSitemap, but keeps each page's <lastmod> (epoch millis, 0 when absent)
+    public static Map<String, Long> readEntriesFromSitemap(String sitemapUrl) {
+        Map<String, Long> entries = new LinkedHashMap<>();
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(sitemapUrl).openConnection();
+            connection.setRequestMethod("GET");
+            DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
+            DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
+            Document doc = dBuilder.parse(connection.getInputStream());
+            NodeList nList = doc.getElementsByTagName("url");
+            for (int i = 0; i < nList.getLength(); i++) {
+                Element urlNode = (Element) nList.item(i);
+                NodeList loc = urlNode.getElementsByTagName("loc");
+                if (loc.getLength() == 0) {
+                    continue;
+                }
+                NodeList lastmod = urlNode.getElementsByTagName("lastmod");
+                long modified = lastmod.getLength() == 0 ? 0 : parseLastmod(lastmod.item(0).getTextContent().trim());
+                entries.put(loc.item(0).getTextContent().trim(), modified);
+            }
+        } catch (Exception e) {
+            System.out.println("⚠️ Error reading sitemap: " + sitemapUrl);
+        }
+        return entries;
+    }
+    // Sitemaps use W3C datetime: either a full ISO-8601 timestamp or a plain date
+    private static long parseLastmod(String value) {
+        try {
+            return OffsetDateTime.parse(value).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+            } catch (DateTimeParseException ignored) {
+                return 0;
+            }
+        }
+    }
     public static void checkCSPForURL(String pageUrl) {
         try {
-            driver.get(pageUrl);
-            Thread.sleep(2000); // wait for logs to load
-            LogEntries logs = driver.manage().logs().get(LogType.BROWSER);
-            boolean cspErrorFound = false;
-            for (LogEntry entry : logs) {
-                String message = entry.getMessage().toLowerCase();
-                if (message.contains("content security policy") ||
-                        message.contains("csp") ||
-                        message.contains("refused to") ||
-                        message.contains("violat") ||
-                        message.contains("blocked")) {
-                    writeErrorToExcel(pageUrl, entry.getMessage());
-                    cspErrorFound = true;
+            List<String> errors;
+            List<JSONObject> events = Collections.emptyList();
+            try {
+                errors = findCSPErrors(driver, pageUrl);
+            } finally {
+                // Drain the performance log even after a failed load, or it ends up in the next page's HAR
+                if (evidence != null) {
+                    events = ConsoleErrorLogger.collectPageLogs(driver).events;
                 }
             }
-            if (!cspErrorFound) {
+            String evidenceLink = "";
+            if (evidence != null && !errors.isEmpty()) {
+                evidenceLink = evidence.capture(driver, pageUrl, events, errors);
+            }
+            for (String error : errors) {
+                writeErrorToExcel(pageUrl, error, evidenceLink);
+            }
+            if (errors.isEmpty()) {
                 System.out.println("✅ No CSP error: " + pageUrl);
             }
         } catch (Exception e) {
             System.out.println("❌ Error accessing: " + pageUrl + " - " + e.getMessage());
         }
     }
-    public static void writeErrorToExcel(String url, String error) {
+    // Loads the page and returns the CSP-related console messages; state-free so any driver can be used
+    public static List<String> findCSPErrors(WebDriver driver, String pageUrl) throws InterruptedException {
+        driver.get(pageUrl);
+        Thread.sleep(2000); // wait for logs to load
+        LogEntries logs = driver.manage().logs().get(LogType.BROWSER);
+        List<String> errors = new ArrayList<>();
+        for (LogEntry entry : logs) {
+            String message = entry.getMessage().toLowerCase();
+            if (message.contains("content security policy") ||
+                    message.contains("csp") ||
+                    message.contains("refused to") ||
+                    message.contains("violat") ||
+                    message.contains("blocked")) {
+                errors.add(entry.getMessage());
+            }
+        }
+        return errors;
+    }
+    public static void writeErrorToExcel(String url, String error, String evidenceLink) {
+        findings.add(new ResultStore.Finding(url, "CSP Error", error));
         Row row = sheet.createRow(rowNum++);
         row.createCell(0).setCellValue(url);
         row.createCell(1).setCellValue(error);
         row.createCell(2).setCellValue(new Date().toString());
+        if (!evidenceLink.isEmpty()) {
+            Hyperlink link = workbook.getCreationHelper().createHyperlink(HyperlinkType.FILE);
+            link.setAddress(evidenceLink);
+            row.createCell(3).setCellValue("evidence");
+            row.getCell(3).setHyperlink(link);
+        }
         CellStyle style = workbook.createCellStyle();
         style.setFillForegroundColor(IndexedColors.RED.getIndex());
         style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
@@ -4,11 +4,21 @@
  * A utility that crawls the pages listed in one or more XML sitemaps, captures:
  *   • JavaScript console errors (SEVERE / WARNING)
  *   • Network‑layer errors (HTTP status ≥ 400)
+ *   • Page weight – bytes and requests per resource type vs. budgets (see PageWeight)
+ *   • Third‑party origins – requests, bytes and (opt‑in) main‑thread blocking time
+ *   • Images – oversized, legacy‑format, non‑lazy and unsized images (see ImageAudit)
+ *   • Asset headers – caching and compression of scripts, styles, fonts, images
  *
  * It then exports the aggregated results to:
- *   • Excel  (.xlsx) – two sheets: “Console Errors” and “Network Errors”
+ *   • Excel  (.xlsx) – “Console Errors”, “Network Errors”, “Page Weight”,
+ *                      “Over Budget”, “Third Parties”, “Images”, “Asset Headers”,
+ *                      “Load Failures”
  *   • CSV    (.csv)  – flat list of all errors
- *   • HTML   (.html) – simple, share‑ready report
+ *   • HTML   (.html) – searchable, grouped viewer with its data in
+ *                      Console_Error_Report_data/ (see HtmlReport)
+ *   • results/        – run history; see ResultStore for new/fixed diffs
+ *   • evidence/       – screenshot, DOM and HAR of each flagged page, linked
+ *                       from every report row (see EvidenceCapture)
  *
  * Key technologies
  *   • Selenium WebDriver + ChromeDriver (headless capable)
@@ -18,12 +28,17 @@
  *
  * Usage
  *   1. Place the ChromeDriver binary in your project root (or adjust the path).
- *   2. Edit the `sitemapUrls` list below to target your own XML sitemaps.
+ *   2. Edit the `sitemapUrls` list below to target your own XML sitemaps
+ *      (or pass sitemap URLs as arguments).
  *   3. Run `java ConsoleErrorLogger`. Reports are created alongside your project.
+ *      -Dconsole.workers=N    crawl N pages in parallel (deadlines/retries: see PageCrawler)
+ *      -Dweight.budgets=FILE  page‑weight budgets (see PageWeight)
+ *      -Dthirdparty.blocking=true  trace the main thread for third‑party blocking time
  *
  * Author : Girish Teli
  * Created: 30 Jun 2025
  */
+import org.apache.poi.common.usermodel.HyperlinkType;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
@@ -55,27 +70,36 @@ public class ConsoleErrorLogger {
      * Launches Chrome (headless), iterates through every page found in the given
      * sitemap(s), logs errors, and writes the three output reports.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
         /* 1️⃣  Configure ChromeDriver path (assumes driver is in project root). */
         System.setProperty("Webdriver.chrome.driver",
                 System.getProperty("user.dir") + "/chromedriver");
 
-        /* 2️⃣  Build ChromeOptions – headless & full log capture. */
-        ChromeOptions options = new ChromeOptions();
-        options.addArguments("--headless=new");           // comment‑out to see UI
-        options.addArguments("--no-sandbox");
-        options.addArguments("--disable-dev-shm-usage");
-
-        LoggingPreferences logs = new LoggingPreferences();
-        logs.enable(LogType.BROWSER,     Level.ALL);      // console logs
-        logs.enable(LogType.PERFORMANCE, Level.ALL);      // DevTools logs
-        options.setCapability("goog:loggingPrefs", logs);
-
-        WebDriver driver = new ChromeDriver(options);
-        driver.manage().window().maximize();
-
-        /* 3️⃣  Target sitemap(s) – add/remove as needed. */
-        List<String> sitemapUrls = Arrays.asList(
+        /* 2️⃣  Browser factory – headless, full log capture, load strategy from -Dload.strategy.
+         *     Pages are loaded by PageCrawler: per‑page deadline, retries, optional hedging. */
+        // Screenshot / DOM / HAR of flagged pages, written off the crawl threads (-Devidence=false to skip)
+        EvidenceCapture evidence = EvidenceCapture.ENABLED ? EvidenceCapture.openDefault() : null;
+        PageCrawler<PageLogs> crawler = new PageCrawler<>(Integer.getInteger("console.workers", 1),
+                ConsoleErrorLogger::createDriver,
+                (driver, pageUrl) -> {
+                    Thread.sleep(4000);          // wait for async JS / network
+                    PageLogs pageLogs = collectPageLogs(driver);
+                    try {
+                        pageLogs.images = ImageAudit.collect(driver, pageLogs.events);
+                    } catch (Exception e) {
+                        System.out.println("⚠️ Image audit failed on " + pageUrl + ": " + e.getMessage());
+                    }
+                    List<String> flagged = new ArrayList<>();
+                    pageLogs.consoleErrors.forEach(error -> flagged.add(error[0] + ": " + error[1]));
+                    flagged.addAll(failedRequests(pageLogs.events));
+                    if (evidence != null && !flagged.isEmpty()) {
+                        pageLogs.evidence = evidence.capture(driver, pageUrl, pageLogs.events, flagged);
+                    }
+                    return pageLogs;
+                });
+
+        /* 3️⃣  Target sitemap(s) – add/remove as needed, or pass them as arguments. */
+        List<String> sitemapUrls = args.length > 0 ? Arrays.asList(args) : Arrays.asList(
             //  "https://silverfortstg.wpengine.com/sitemap.xml"
                 "https://www.a-lign.com/post-sitemap.xml",
                 "https://www.a-lign.com/page-sitemap.xml",
@@ -103,52 +127,127 @@ public class ConsoleErrorLogger {
         headerRow1.createCell(0).setCellValue("Page URL");
         headerRow1.createCell(1).setCellValue("Error Type");
         headerRow1.createCell(2).setCellValue("Error Message");
+        headerRow1.createCell(3).setCellValue("Evidence");
 
         Row headerRow2 = networkSheet.createRow(0);
         headerRow2.createCell(0).setCellValue("Page URL");
         headerRow2.createCell(1).setCellValue("Status Code");
         headerRow2.createCell(2).setCellValue("Request URL");
+        headerRow2.createCell(3).setCellValue("Evidence");
+
+        // Page weight from the same performance log, checked against -Dweight.budgets
+        PageWeight budgets = PageWeight.loadBudgets();
+        Sheet weightSheet     = workbook.createSheet("Page Weight");
+        Sheet overBudgetSheet = workbook.createSheet("Over Budget");
+        PageWeight.writeWeightHeader(weightSheet);
+        PageWeight.writeOverBudgetHeader(overBudgetSheet);
+
+        // External origins contacted by the pages, aggregated over the whole crawl
+        ThirdPartyInventory thirdParties = new ThirdPartyInventory();
+        ImageAudit images = new ImageAudit();
+        AssetHeaderAudit assetHeaders = new AssetHeaderAudit();   // probed once per asset after the crawl
 
         // CSV / HTML records (first row = header)
         List<String[]> errorRecords = new ArrayList<>();
-        errorRecords.add(new String[]{"Page URL", "Error Type", "Error Message"});
+        errorRecords.add(new String[]{"Page URL", "Error Type", "Error Message", "Evidence"});
 
-        int rowNumConsole = 1;
-        int rowNumNetwork = 1;
+        // Same errors, one per row with the URL always filled in, for the result store
+        List<ResultStore.Finding> findings = new ArrayList<>();
 
         /* 6️⃣  Crawl each sitemap, then each page within. */
+        List<String> pageUrls = new ArrayList<>();
         for (String sitemapUrl : sitemapUrls) {
-            List<String> pageUrls = extractUrlsFromSitemap(sitemapUrl);
-            if (pageUrls.isEmpty()) {
+            List<String> urls = extractUrlsFromSitemap(sitemapUrl);
+            if (urls.isEmpty()) {
                 System.out.println("⚠️  No URLs found in sitemap: " + sitemapUrl);
-                continue;
             }
+            pageUrls.addAll(urls);
+        }
 
-            for (String pageUrl : pageUrls) {
-                System.out.println("\n🔍 Visiting: " + pageUrl);
-                try {
-                    driver.get(pageUrl);
-                    Thread.sleep(4000);          // wait for async JS / network
-                } catch (Exception e) {
-                    System.out.println("❌ Error loading page: " + pageUrl);
-                    continue;                    // skip to next URL
-                }
-
+        List<PageCrawler.Outcome<PageLogs>> outcomes = crawler.crawl(pageUrls, outcome -> {
+            String pageUrl = outcome.url;
+            System.out.println("\n🔍 Visited: " + pageUrl);
+            int firstRecord = errorRecords.size();
+            int firstConsoleRow = consoleSheet.getLastRowNum() + 1;
+            int firstNetworkRow = networkSheet.getLastRowNum() + 1;
+            if (outcome.status != PageCrawler.Status.OK) {
+                // Pages that never loaded are reported, not skipped
+                System.out.println("❌ Error loading page: " + pageUrl);
+                errorRecords.add(new String[]{pageUrl, "Page Load " + outcome.status,
+                        outcome.error == null ? "" : outcome.error});
+            } else {
                 // Capture console & network errors
-                rowNumConsole = logConsoleErrors(driver, pageUrl,
-                        consoleSheet, rowNumConsole, errorRecords);
-                rowNumNetwork = logNetworkErrors(driver, pageUrl,
-                        networkSheet, rowNumNetwork, errorRecords);
+                logConsoleErrors(outcome.result.consoleErrors, pageUrl,
+                        consoleSheet, consoleSheet.getLastRowNum() + 1, errorRecords);
+                logNetworkErrors(outcome.result.events, pageUrl,
+                        networkSheet, networkSheet.getLastRowNum() + 1, errorRecords);
+
+                thirdParties.record(pageUrl, outcome.result.events);
+                images.record(pageUrl, outcome.result.images);
+                assetHeaders.record(pageUrl, outcome.result.events);
+
+                PageWeight.Weight weight = PageWeight.measure(outcome.result.events);
+                PageWeight.writeWeightRow(weightSheet, pageUrl, weight);
+                for (Object[] exceeded : budgets.overBudget(pageUrl, weight)) {
+                    System.out.println("🏋️ [Over Budget] " + exceeded[0] + ": " + exceeded[1] + " > " + exceeded[2]);
+                    PageWeight.writeOverBudgetRow(overBudgetSheet, pageUrl, exceeded);
+                    errorRecords.add(new String[]{pageUrl, "Over Budget",
+                            exceeded[0] + ": " + exceeded[1] + " > " + exceeded[2]});
+                }
             }
+            String evidenceLink = outcome.result == null ? "" : outcome.result.evidence;
+            if (!evidenceLink.isEmpty()) {
+                linkEvidence(workbook, consoleSheet, firstConsoleRow, evidenceLink);
+                linkEvidence(workbook, networkSheet, firstNetworkRow, evidenceLink);
+            }
+            for (int i = firstRecord; i < errorRecords.size(); i++) {
+                String[] record = errorRecords.get(i);
+                findings.add(new ResultStore.Finding(pageUrl, record[1], record[2]));
+                errorRecords.set(i, new String[]{pageUrl, record[1], record[2], evidenceLink});
+            }
+        });
+
+        /* 7️⃣  Shutdown WebDriver. */
+        crawler.close();
+        if (evidence != null) {
+            evidence.close();
         }
 
-        /* 7️⃣  Persist reports to disk. */
+        /* 8️⃣  Persist reports to disk. */
+        PageCrawler.writeLoadSheet(workbook, outcomes);
+        thirdParties.writeSheet(workbook);
+        images.writeSheet(workbook);
+        assetHeaders.probeAll();
+        assetHeaders.writeSheet(workbook);
         saveExcelReport(workbook, excelFilePath);
         saveCsvReport(errorRecords, csvFilePath);
         saveHtmlReport(errorRecords, htmlFilePath);
+        ResultStore.recordRun("console", findings);
+    }
 
-        /* 8️⃣  Shutdown WebDriver. */
-        driver.quit();
+    /**
+     * Headless Chrome with console + DevTools performance logging enabled.
+     */
+    static ChromeDriver createDriver() {
+        ChromeOptions options = new ChromeOptions();
+        options.addArguments("--headless=new");           // comment‑out to see UI
+        options.addArguments("--no-sandbox");
+        options.addArguments("--disable-dev-shm-usage");
+
+        LoggingPreferences logs = new LoggingPreferences();
+        logs.enable(LogType.BROWSER,     Level.ALL);      // console logs
+        logs.enable(LogType.PERFORMANCE, Level.ALL);      // DevTools logs
+        options.setCapability("goog:loggingPrefs", logs);
+
+        if (ThirdPartyInventory.BLOCKING) {
+            Map<String, Object> perfPrefs = new HashMap<>();   // timeline trace → main‑thread blocking time
+            perfPrefs.put("traceCategories", ThirdPartyInventory.TRACE_CATEGORIES);
+            options.setExperimentalOption("perfLoggingPrefs", perfPrefs);
+        }
+
+        ChromeDriver driver = new ChromeDriver(PageCrawler.configure(options));
+        driver.manage().window().maximize();
+        return driver;
     }
 
     /* ─────────────────────── Sitemap Helper  ─────────────────────── */
@@ -189,42 +288,35 @@ public class ConsoleErrorLogger {
     /**
      * Records SEVERE/WARNING console logs for the current page.
      *
-     * @param driver       Active WebDriver instance.
+     * @param errors       [error type, message] pairs from {@link #collectConsoleErrors}.
      * @param url          URL of the page just visited (for context).
      * @param sheet        Excel sheet to write into.
      * @param rowNum       Current Excel row pointer (will be incremented).
      * @param errorRecords In‑memory list for CSV/HTML.
      * @return Updated row pointer.
      */
-    public static int logConsoleErrors(WebDriver driver,
+    public static int logConsoleErrors(List<String[]> errors,
                                        String url,
                                        Sheet sheet,
                                        int rowNum,
                                        List<String[]> errorRecords) {
 
-        LogEntries logEntries = driver.manage().logs().get(LogType.BROWSER);
         boolean firstErrorForUrl = true;          // needed for row merging
         int startRow = rowNum;
 
-        for (LogEntry entry : logEntries) {
-            // Normalise message for pattern matching
-            String message   = entry.getMessage().toLowerCase();
-            String errorType = determineErrorType(message);
+        for (String[] error : errors) {
+            System.out.println("🚨 [Console - " + error[0] + "] " + error[1]);
 
-            if (entry.getLevel() == Level.SEVERE || entry.getLevel() == Level.WARNING) {
-                System.out.println("🚨 [Console - " + errorType + "] " + entry.getMessage());
-
-                Row row = sheet.createRow(rowNum++);
-                // only write URL in the first row for this page, then merge later
-                row.createCell(0).setCellValue(firstErrorForUrl ? url : "");
-                row.createCell(1).setCellValue(errorType);
-                row.createCell(2).setCellValue(entry.getMessage());
+            Row row = sheet.createRow(rowNum++);
+            // only write URL in the first row for this page, then merge later
+            row.createCell(0).setCellValue(firstErrorForUrl ? url : "");
+            row.createCell(1).setCellValue(error[0]);
+            row.createCell(2).setCellValue(error[1]);
 
-                errorRecords.add(new String[]{
-                        firstErrorForUrl ? url : "", errorType, entry.getMessage()});
+            // CSV / HTML rows stand alone (sorting, grouping), so each carries its page
+            errorRecords.add(new String[]{url, error[0], error[1]});
 
-                firstErrorForUrl = false;
-            }
+            firstErrorForUrl = false;
         }
 
         // Merge URL cell vertically so it spans all error rows for that page
@@ -234,34 +326,78 @@ public class ConsoleErrorLogger {
         return rowNum;
     }
 
+    /**
+     * Drains the browser log and keeps SEVERE/WARNING entries.
+     *
+     * @param driver Active WebDriver instance.
+     * @return [error type, message] pairs, in log order.
+     */
+    public static List<String[]> collectConsoleErrors(WebDriver driver) {
+        List<String[]> errors = new ArrayList<>();
+        for (LogEntry entry : driver.manage().logs().get(LogType.BROWSER)) {
+            if (entry.getLevel() == Level.SEVERE || entry.getLevel() == Level.WARNING) {
+                // Normalise message for pattern matching
+                errors.add(new String[]{
+                        determineErrorType(entry.getMessage().toLowerCase()), entry.getMessage()});
+            }
+        }
+        return errors;
+    }
+
+    /** Everything the browser logged for one page, read once and shared by all checks. */
+    static class PageLogs {
+        final List<String[]> consoleErrors;
+        final List<JSONObject> events;
+        List<ImageAudit.Image> images = Collections.emptyList();   // visible images, if audited
+        String evidence = "";                                      // evidence bundle link, if captured
+
+        PageLogs(List<String[]> consoleErrors, List<JSONObject> events) {
+            this.consoleErrors = consoleErrors;
+            this.events = events;
+        }
+    }
+
+    /**
+     * Drains both the console and the DevTools performance log.
+     *
+     * @param driver Active WebDriver instance.
+     * @return Console errors plus each performance entry's inner “message” object.
+     */
+    public static PageLogs collectPageLogs(WebDriver driver) {
+        List<String[]> consoleErrors = collectConsoleErrors(driver);
+        List<JSONObject> events = new ArrayList<>();
+        for (LogEntry entry : driver.manage().logs().get(LogType.PERFORMANCE)) {
+            try {
+                events.add(new JSONObject(entry.getMessage()).getJSONObject("message"));
+            } catch (Exception ignored) {
+                /* Malformed or unexpected log entry – safely skip. */
+            }
+        }
+        return new PageLogs(consoleErrors, events);
+    }
+
     /* ─────────────────────── Network‑Error Helper  ─────────────────────── */
 
     /**
-     * Parses Chrome DevTools performance log for failed HTTP responses.
+     * Scans DevTools performance events for failed HTTP responses.
      *
-     * @param driver       Active WebDriver instance.
+     * @param events       Performance‑log messages from {@link #collectPageLogs}.
      * @param url          URL of the page just visited (for context).
-     * @param sheet        Excel “Network Errors” sheet.
+     * @param sheet        Excel “Network Errors” sheet.
      * @param rowNum       Current Excel row pointer.
      * @param errorRecords Shared list for CSV/HTML output.
      * @return Updated row pointer.
      */
-    public static int logNetworkErrors(WebDriver driver,
+    public static int logNetworkErrors(List<JSONObject> events,
                                        String url,
                                        Sheet sheet,
                                        int rowNum,
                                        List<String[]> errorRecords) {
 
-        LogEntries logs = driver.manage().logs().get(LogType.PERFORMANCE);
-
-        for (LogEntry entry : logs) {
+        for (JSONObject message : events) {
             try {
-                JSONObject logJson = new JSONObject(entry.getMessage());
-                JSONObject message = logJson.getJSONObject("message");
-
                 /* We only care about Network.responseReceived events. */
-                if (!message.has("method") ||
-                        !message.getString("method").equals("Network.responseReceived")) {
+                if (!message.optString("method").equals("Network.responseReceived")) {
                     continue;
                 }
 
@@ -282,12 +418,37 @@ public class ConsoleErrorLogger {
                 }
 
             } catch (Exception ignored) {
-                /* Malformed or unexpected log entry – safely skip. */
+                /* Malformed or unexpected event – safely skip. */
             }
         }
         return rowNum;
     }
 
+    /** "Network Error <status>: <url>" for every failed response, as listed in an evidence bundle. */
+    static List<String> failedRequests(List<JSONObject> events) {
+        List<String> failed = new ArrayList<>();
+        for (JSONObject message : events) {
+            JSONObject params = message.optJSONObject("params");
+            JSONObject response = params == null ? null : params.optJSONObject("response");
+            if ("Network.responseReceived".equals(message.optString("method")) && response != null
+                    && response.optInt("status", 0) >= 400) {
+                failed.add("Network Error " + response.optInt("status", 0) + ": " + response.optString("url"));
+            }
+        }
+        return failed;
+    }
+
+    /** Adds an "evidence" file link in column D of every row from {@code fromRow} down. */
+    static void linkEvidence(Workbook workbook, Sheet sheet, int fromRow, String link) {
+        for (int r = fromRow; r <= sheet.getLastRowNum(); r++) {
+            Hyperlink hyperlink = workbook.getCreationHelper().createHyperlink(HyperlinkType.FILE);
+            hyperlink.setAddress(link);
+            Cell cell = sheet.getRow(r).createCell(3);
+            cell.setCellValue("evidence");
+            cell.setHyperlink(hyperlink);
+        }
+    }
+
     /* ─────────────────────── Utility Helpers  ─────────────────────── */
 
     /**
@@ -334,25 +495,19 @@ public class ConsoleErrorLogger {
         }
     }
     /**
-     * Renders the error list as an HTML table with basic styling.
+     * Streams the error list into an HtmlReport (virtualised, searchable,
+     * groupable by page or error type), so large crawls still open quickly.
      */
     public static void saveHtmlReport(List<String[]> records, String filePath) {
-        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(filePath))) {
-            writer.write("<html><head><title>Console + Network Error Report</title>");
-            writer.write("<style>table{border-collapse:collapse;}th,td{border:1px solid #000;padding:8px;}</style>");
-            writer.write("</head><body>");
-            writer.write("<h2>Error Report</h2><table>");
-            writer.write("<tr><th>Page URL</th><th>Error Type</th><th>Error Message</th></tr>");
+        try {
             // Skip header row in records[0]
-            for (int i = 1; i < records.size(); i++) {
-                String[] record = records.get(i);
-                writer.write("<tr>");
-                writer.write("<td>" + (record[0].isEmpty() ? "&nbsp;" : record[0]) + "</td>");
-                writer.write("<td>" + record[1] + "</td>");
-                writer.write("<td>" + record[2] + "</td>");
-                writer.write("</tr>");
+            try (HtmlReport report = new HtmlReport(Paths.get(filePath), "Console + Network Error Report",
+                    records.get(0), 0, 1)) {
+                report.linkColumn(3);
+                for (String[] record : records.subList(1, records.size())) {
+                    report.add(record);
+                }
             }
-            writer.write("</table></body></html>");
             System.out.println("✅ HTML report saved at: " + filePath);
         } catch (Exception e) {
             System.out.println("❌ Error saving HTML file: " + e.getMessage());
@@ -0,0 +1,273 @@
+/**
+ * ContactFormBatch.java
+ *
+ * Data‑driven batch mode for ContactFormSubmitter.
+ *
+ * Reads form rows (Name, Email, Phone, Message) from a .csv or .xlsx file and
+ * submits them through a pool of concurrent Chrome sessions. Every submission
+ * waits on the form's own result (thank‑you redirect or CF7 response) rather
+ * than fixed sleeps, and its latency and outcome are recorded.
+ *
+ * Output
+ *   • ContactFormBatchReport.xlsx – one row per submission + summary sheet
+ *   • Console summary with submissions per minute and latency percentiles
+ *
+ * Rows no session got to (sessions that failed to start, or the 6 h limit)
+ * are reported as "not attempted" and left out of latency and throughput.
+ *
+ * Usage
+ *   java ContactFormBatch form-rows.csv
+ *   -Dform.sessions=4       concurrent browser sessions
+ *   -Dform.screenshots=true store a screenshot of each result (de‑duplicated)
+ */
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class ContactFormBatch {
+
+    static final int SESSIONS = Integer.getInteger("form.sessions", 4);
+    static final boolean SCREENSHOTS = Boolean.getBoolean("form.screenshots");
+
+    /** Outcome of one submitted row. */
+    static class Submission {
+        final int rowNumber;
+        final String[] fields;
+        volatile boolean attempted;
+        String outcome = "not attempted";
+        long latencyMs;
+        boolean success;
+
+        Submission(int rowNumber, String[] fields) {
+            this.rowNumber = rowNumber;
+            this.fields = fields;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.out.println("❌ Usage: java ContactFormBatch <rows.csv | rows.xlsx>");
+            return;
+        }
+
+        List<Submission> submissions = new ArrayList<>();
+        List<String[]> rows = readRows(new File(args[0]));
+        for (int i = 0; i < rows.size(); i++) {
+            String[] fields = Arrays.copyOf(rows.get(i), 4);
+            if (ContactFormSubmitter.isHeaderOrEmpty(fields[0])) {
+                System.out.println("Skipping header row or empty data (row " + (i + 1) + ")");
+                continue;
+            }
+            submissions.add(new Submission(i + 1, fields));
+        }
+        System.out.println("📋 " + submissions.size() + " submissions, " + SESSIONS + " sessions");
+
+        System.setProperty("Webdriver.chrome.driver",
+                System.getProperty("user.dir") + "/chromedriver");
+        BlockingQueue<Submission> pending = new LinkedBlockingQueue<>(submissions);
+        ExecutorService pool = Executors.newFixedThreadPool(SESSIONS);
+        long started = System.nanoTime();
+        List<Future<?>> sessions = new ArrayList<>();
+        for (int s = 0; s < SESSIONS; s++) {
+            sessions.add(pool.submit(() -> {
+                ChromeOptions options = new ChromeOptions();
+                options.addArguments("--headless=new");
+                options.addArguments("--disable-dev-shm-usage");
+                WebDriver driver = new ChromeDriver(options);
+                try {
+                    Submission submission;
+                    while ((submission = pending.poll()) != null) {
+                        submit(driver, submission);
+                    }
+                } finally {
+                    driver.quit();
+                }
+                return null;
+            }));
+        }
+        pool.shutdown();
+        if (!pool.awaitTermination(6, TimeUnit.HOURS)) {
+            System.out.println("⏰ Batch still running after 6 h – stopping the sessions");
+            pool.shutdownNow();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        int failedSessions = 0;
+        for (Future<?> session : sessions) {
+            try {
+                if (session.isDone()) {
+                    session.get();
+                }
+            } catch (ExecutionException | CancellationException e) {
+                failedSessions++;
+                System.out.println("❌ Browser session failed: " + (e.getCause() != null ? e.getCause() : e));
+            }
+        }
+
+        saveReport(submissions, elapsedMs, failedSessions, "ContactFormBatchReport.xlsx");
+    }
+
+    static void submit(WebDriver driver, Submission submission) {
+        String[] f = submission.fields;
+        submission.attempted = true;
+        long start = System.nanoTime();
+        try {
+            String status = ContactFormSubmitter.submitForm(driver,
+                    f[0], nullToEmpty(f[1]), nullToEmpty(f[2]), nullToEmpty(f[3]));
+            submission.outcome = status;
+            submission.success = "sent".equals(status) || "thank-you".equals(status);
+            if (SCREENSHOTS) {
+                ContactFormSubmitter.takeScreenshot(driver, "batch-row-" + submission.rowNumber);
+            }
+        } catch (Exception e) {
+            submission.outcome = "error: " + e.getMessage();
+        }
+        submission.latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.println((submission.success ? "✅ " : "❌ ") + "Row " + submission.rowNumber
+                + " (" + f[0] + "): " + submission.outcome + " in " + submission.latencyMs + " ms");
+    }
+
+    /* ─────────────────────── Input ─────────────────────── */
+
+    /** Reads all rows as strings; first sheet for .xlsx, comma‑separated for anything else. */
+    static List<String[]> readRows(File file) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        if (file.getName().toLowerCase().endsWith(".xlsx")) {
+            DataFormatter formatter = new DataFormatter();
+            try (Workbook workbook = WorkbookFactory.create(file)) {
+                for (Row row : workbook.getSheetAt(0)) {
+                    String[] cells = new String[Math.max(row.getLastCellNum(), 0)];
+                    for (int c = 0; c < cells.length; c++) {
+                        Cell cell = row.getCell(c);
+                        cells[c] = cell == null ? "" : formatter.formatCellValue(cell).trim();
+                    }
+                    rows.add(cells);
+                }
+            }
+        } else {
+            for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                if (!line.trim().isEmpty()) {
+                    rows.add(parseCsvLine(line));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /** Splits one CSV line, honouring double‑quoted fields with "" escapes. */
+    static String[] parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields.toArray(new String[0]);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    /* ─────────────────────── Report ─────────────────────── */
+
+    static void saveReport(List<Submission> submissions, long elapsedMs, int failedSessions, String fileName) {
+        long attempted = submissions.stream().filter(s -> s.attempted).count();
+        long[] latencies = submissions.stream().filter(s -> s.attempted).mapToLong(s -> s.latencyMs).sorted().toArray();
+        long succeeded = submissions.stream().filter(s -> s.success).count();
+        double perMinute = elapsedMs == 0 ? 0 : attempted * 60000.0 / elapsedMs;
+
+        try (Workbook workbook = new XSSFWorkbook();
+             FileOutputStream out = new FileOutputStream(fileName)) {
+            Sheet sheet = workbook.createSheet("Submissions");
+            String[] headers = {"Row", "Name", "Email", "Phone", "Outcome", "Latency (ms)"};
+            Row headerRow = sheet.createRow(0);
+            for (int i = 0; i < headers.length; i++) {
+                headerRow.createCell(i).setCellValue(headers[i]);
+            }
+            CellStyle failStyle = workbook.createCellStyle();
+            failStyle.setFillForegroundColor(IndexedColors.RED.getIndex());
+            failStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+            int rowNum = 1;
+            for (Submission s : submissions) {
+                Row row = sheet.createRow(rowNum++);
+                row.createCell(0).setCellValue(s.rowNumber);
+                row.createCell(1).setCellValue(s.fields[0]);
+                row.createCell(2).setCellValue(nullToEmpty(s.fields[1]));
+                row.createCell(3).setCellValue(nullToEmpty(s.fields[2]));
+                row.createCell(4).setCellValue(s.outcome);
+                if (s.attempted) {
+                    row.createCell(5).setCellValue(s.latencyMs);
+                }
+                if (!s.success) {
+                    row.getCell(4).setCellStyle(failStyle);
+                }
+            }
+
+            Sheet summary = workbook.createSheet("Summary");
+            Object[][] values = {
+                    {"Submissions", submissions.size()},
+                    {"Succeeded", succeeded},
+                    {"Failed", attempted - succeeded},
+                    {"Not attempted", submissions.size() - attempted},
+                    {"Sessions", SESSIONS},
+                    {"Sessions failed", failedSessions},
+                    {"Elapsed (s)", elapsedMs / 1000.0},
+                    {"Submissions / minute", perMinute},
+                    {"Latency p50 (ms)", percentile(latencies, 50)},
+                    {"Latency p95 (ms)", percentile(latencies, 95)},
+                    {"Latency max (ms)", latencies.length == 0 ? 0 : latencies[latencies.length - 1]}
+            };
+            for (int i = 0; i < values.length; i++) {
+                Row row = summary.createRow(i);
+                row.createCell(0).setCellValue((String) values[i][0]);
+                row.createCell(1).setCellValue(((Number) values[i][1]).doubleValue());
+            }
+            workbook.write(out);
+            System.out.println("✅ Batch report saved at: " + fileName);
+        } catch (Exception e) {
+            System.out.println("❌ Error saving batch report: " + e.getMessage());
+        }
+
+        System.out.printf("📈 %d/%d succeeded (%d not attempted), %.1f submissions/min, p50 %d ms, p95 %d ms%n",
+                succeeded, submissions.size(), submissions.size() - attempted, perMinute,
+                percentile(latencies, 50), percentile(latencies, 95));
+    }
+
+    /** Nearest‑rank percentile of an ascending array (0 when empty). */
+    static long percentile(long[] sorted, int p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
@@ -0,0 +1,458 @@
+/**
+ * ContactFormLoadTest.java
+ *
+ * Browserless load generator for Contact Form 7 endpoints.
+ *
+ * 1. Fetches the form page once and learns the CF7 form id, hidden fields
+ *    (_wpcf7, _wpcf7_unit_tag, _wpnonce, …) and the REST feedback endpoint.
+ * 2. Replays multipart/form‑data submissions straight to
+ *    /wp-json/contact-form-7/v1/contact-forms/<id>/feedback over one pooled,
+ *    asynchronous java.net.http.HttpClient – no browser involved.
+ * 3. Ramps through stages at a target rate (req/s) or concurrency and reports
+ *    latency percentiles and error rates per stage.
+ *
+ * Payloads come from a CSV parameter file whose header row holds the form
+ * field names (e.g. your-name,email,phone,message); rows are used round‑robin.
+ *
+ * Usage
+ *   java ContactFormLoadTest <form page URL | --stand-in> <payloads.csv>
+ *   -Dload.mode=rate|concurrency   (default rate)
+ *   -Dload.stages=5x30s,20x60s     stage = <rate or concurrency>x<duration>
+ *
+ * --stand-in starts a local CF7 look‑alike on a free port and targets it, so
+ * the generator itself can be exercised without touching a client site.
+ */
+import com.sun.net.httpserver.HttpServer;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class ContactFormLoadTest {
+
+    static final String MODE   = System.getProperty("load.mode", "rate");
+    static final String STAGES = System.getProperty("load.stages", "2x30s,5x60s,10x60s");
+    static final int MAX_IN_FLIGHT = 2000;   // rate mode: beyond this, ticks are skipped and counted
+
+    private static final Pattern HIDDEN_INPUT = Pattern.compile(
+            "<input[^>]*type=[\"']hidden[\"'][^>]*>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ATTRIBUTE = Pattern.compile(
+            "(name|value)=[\"']([^\"']*)[\"']", Pattern.CASE_INSENSITIVE);
+
+    /** What the form page tells us about how to submit it. */
+    static class FormTarget {
+        final URI endpoint;
+        final Map<String, String> hiddenFields;
+
+        FormTarget(URI endpoint, Map<String, String> hiddenFields) {
+            this.endpoint = endpoint;
+            this.hiddenFields = hiddenFields;
+        }
+    }
+
+    /** A load level held for a duration. */
+    static class Stage {
+        final int level;          // req/s in rate mode, in‑flight requests in concurrency mode
+        final long durationMs;
+
+        Stage(int level, long durationMs) {
+            this.level = level;
+            this.durationMs = durationMs;
+        }
+
+        @Override
+        public String toString() {
+            return level + ("rate".equals(MODE) ? " req/s" : " concurrent") + " for " + durationMs / 1000 + "s";
+        }
+    }
+
+    /** Results collected for one stage; updated from HttpClient callback threads. */
+    static class StageStats {
+        final Stage stage;
+        final ConcurrentLinkedQueue<Long> latenciesMs = new ConcurrentLinkedQueue<>();
+        final ConcurrentHashMap<String, AtomicInteger> outcomes = new ConcurrentHashMap<>();
+        final AtomicLong sent = new AtomicLong();
+        final AtomicLong skipped = new AtomicLong();
+        long elapsedMs;
+
+        StageStats(Stage stage) {
+            this.stage = stage;
+        }
+
+        void record(String outcome, long latencyMs) {
+            latenciesMs.add(latencyMs);
+            outcomes.computeIfAbsent(outcome, k -> new AtomicInteger()).incrementAndGet();
+        }
+
+        long errors() {
+            return outcomes.entrySet().stream()
+                    .filter(e -> !"mail_sent".equals(e.getKey()))
+                    .mapToLong(e -> e.getValue().get()).sum();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("❌ Usage: java ContactFormLoadTest <form page URL | --stand-in> <payloads.csv>");
+            return;
+        }
+
+        HttpServer standIn = null;
+        String formUrl = args[0];
+        if ("--stand-in".equals(formUrl)) {
+            standIn = startStandIn(0, 20, 30);
+            formUrl = "http://localhost:" + standIn.getAddress().getPort() + "/contact-us/";
+            System.out.println("🧪 Stand‑in CF7 server at " + formUrl);
+        }
+        try {
+            run(formUrl, new File(args[1]));
+        } finally {
+            if (standIn != null) {
+                standIn.stop(0);
+            }
+        }
+    }
+
+    /** Runs every stage against the form page's endpoint and saves ContactFormLoadReport.xlsx. */
+    static List<StageStats> run(String formUrl, File payloadFile) throws Exception {
+        ExecutorService callbacks = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(callbacks)
+                .build();
+        try {
+            FormTarget target = discover(client, formUrl);
+            System.out.println("🎯 Endpoint: " + target.endpoint + " (" + target.hiddenFields.size() + " hidden fields)");
+            List<Map<String, String>> payloads = readPayloads(payloadFile);
+
+            List<StageStats> results = new ArrayList<>();
+            for (Stage stage : parseStages(STAGES)) {
+                System.out.println("\n🚀 Stage: " + stage);
+                StageStats stats = "concurrency".equals(MODE)
+                        ? runConcurrencyStage(client, target, payloads, stage)
+                        : runRateStage(client, target, payloads, stage);
+                printStage(stats);
+                results.add(stats);
+            }
+            saveReport(results, System.getProperty("user.dir") + "/ContactFormLoadReport.xlsx");
+            return results;
+        } finally {
+            callbacks.shutdownNow();
+        }
+    }
+
+    /* ─────────────────────── Discovery ─────────────────────── */
+
+    /** Fetches the form page and extracts the CF7 hidden fields and REST endpoint. */
+    static FormTarget discover(HttpClient client, String formUrl) throws IOException, InterruptedException {
+        HttpResponse<String> page = client.send(
+                HttpRequest.newBuilder(URI.create(formUrl)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        String html = page.body();
+
+        int formStart = html.indexOf("wpcf7-form");
+        if (formStart < 0) {
+            throw new IOException("No Contact Form 7 form found on " + formUrl);
+        }
+        int formEnd = html.indexOf("</form>", formStart);
+        String formHtml = html.substring(formStart, formEnd < 0 ? html.length() : formEnd);
+
+        Map<String, String> hidden = new LinkedHashMap<>();
+        Matcher input = HIDDEN_INPUT.matcher(formHtml);
+        while (input.find()) {
+            String name = null, value = "";
+            Matcher attr = ATTRIBUTE.matcher(input.group());
+            while (attr.find()) {
+                if (attr.group(1).equalsIgnoreCase("name")) {
+                    name = attr.group(2);
+                } else {
+                    value = attr.group(2);
+                }
+            }
+            if (name != null) {
+                hidden.put(name, value);
+            }
+        }
+        String formId = hidden.get("_wpcf7");
+        if (formId == null) {
+            throw new IOException("CF7 form id (_wpcf7) missing on " + formUrl);
+        }
+
+        // The wpcf7 settings object carries the REST root; fall back to the standard location
+        String restRoot = URI.create(formUrl).resolve("/wp-json/").toString();
+        Matcher root = Pattern.compile("\"root\"\\s*:\\s*\"([^\"]+)\"").matcher(html);
+        if (root.find()) {
+            restRoot = root.group(1).replace("\\/", "/");
+        }
+        if (!restRoot.endsWith("/")) {
+            restRoot += "/";
+        }
+        return new FormTarget(URI.create(restRoot + "contact-form-7/v1/contact-forms/" + formId + "/feedback"), hidden);
+    }
+
+    /** Reads the parameter file: header row = field names, one payload per following row. */
+    static List<Map<String, String>> readPayloads(File file) throws IOException {
+        List<String[]> rows = ContactFormBatch.readRows(file);
+        if (rows.size() < 2) {
+            throw new IOException("Parameter file needs a header row and at least one payload: " + file);
+        }
+        String[] names = rows.get(0);
+        List<Map<String, String>> payloads = new ArrayList<>();
+        for (String[] row : rows.subList(1, rows.size())) {
+            Map<String, String> payload = new LinkedHashMap<>();
+            for (int i = 0; i < names.length; i++) {
+                payload.put(names[i], i < row.length ? row[i] : "");
+            }
+            payloads.add(payload);
+        }
+        return payloads;
+    }
+
+    /* ─────────────────────── Load stages ─────────────────────── */
+
+    /** Parses "5x30s,20x2m" into stages. */
+    static List<Stage> parseStages(String spec) {
+        List<Stage> stages = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String[] levelAndTime = part.trim().split("x");
+            String time = levelAndTime[1].trim();
+            long unit = time.endsWith("m") ? 60000 : 1000;
+            long amount = Long.parseLong(time.replaceAll("[^0-9]", ""));
+            stages.add(new Stage(Integer.parseInt(levelAndTime[0].trim()), amount * unit));
+        }
+        return stages;
+    }
+
+    /** Open model: starts requests at a fixed rate regardless of how fast they finish. */
+    static StageStats runRateStage(HttpClient client, FormTarget target,
+                                   List<Map<String, String>> payloads, Stage stage) throws InterruptedException {
+        StageStats stats = new StageStats(stage);
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+        long start = System.nanoTime();
+
+        // Every 10 ms, send however many requests the target rate says are due by now
+        ticker.scheduleAtFixedRate(() -> {
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            long due = elapsedMs * stage.level / 1000 - stats.sent.get() - stats.skipped.get();
+            for (long i = 0; i < due; i++) {
+                if (!inFlight.tryAcquire()) {
+                    stats.skipped.incrementAndGet();
+                    continue;
+                }
+                long n = stats.sent.getAndIncrement();
+                submit(client, target, payloads.get((int) (n % payloads.size())), stats)
+                        .whenComplete((r, e) -> inFlight.release());
+            }
+        }, 0, 10, TimeUnit.MILLISECONDS);
+
+        Thread.sleep(stage.durationMs);
+        ticker.shutdownNow();
+        inFlight.acquire(MAX_IN_FLIGHT);   // wait for stragglers
+        stats.elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return stats;
+    }
+
+    /** Closed model: keeps exactly {@code level} requests in flight for the stage duration. */
+    static StageStats runConcurrencyStage(HttpClient client, FormTarget target,
+                                          List<Map<String, String>> payloads, Stage stage) throws InterruptedException {
+        StageStats stats = new StageStats(stage);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(stage.durationMs);
+        CountDownLatch done = new CountDownLatch(stage.level);
+
+        for (int w = 0; w < stage.level; w++) {
+            chain(client, target, payloads, stats, deadline, done);
+        }
+        done.await();
+        stats.elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return stats;
+    }
+
+    // Each virtual user sends its next request as soon as the previous one completes
+    private static void chain(HttpClient client, FormTarget target, List<Map<String, String>> payloads,
+                              StageStats stats, long deadline, CountDownLatch done) {
+        if (System.nanoTime() >= deadline) {
+            done.countDown();
+            return;
+        }
+        long n = stats.sent.getAndIncrement();
+        submit(client, target, payloads.get((int) (n % payloads.size())), stats)
+                .whenComplete((r, e) -> chain(client, target, payloads, stats, deadline, done));
+    }
+
+    /** Sends one multipart submission and records its latency and CF7 outcome. */
+    static CompletableFuture<Void> submit(HttpClient client, FormTarget target,
+                                          Map<String, String> payload, StageStats stats) {
+        Map<String, String> fields = new LinkedHashMap<>(target.hiddenFields);
+        fields.putAll(payload);
+        String boundary = "----cf7load" + Long.toHexString(ThreadLocalRandom.current().nextLong());
+        HttpRequest request = HttpRequest.newBuilder(target.endpoint)
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(multipart(fields, boundary)))
+                .build();
+
+        long start = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    stats.record(outcomeOf(response, error), latencyMs);
+                    return null;
+                });
+    }
+
+    static byte[] multipart(Map<String, String> fields, String boundary) {
+        StringBuilder body = new StringBuilder();
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            body.append("--").append(boundary).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"").append(field.getKey()).append("\"\r\n\r\n")
+                .append(field.getValue()).append("\r\n");
+        }
+        body.append("--").append(boundary).append("--\r\n");
+        return body.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // CF7 answers 200 with {"status": "mail_sent" | "validation_failed" | "spam" | "mail_failed" …}
+    private static String outcomeOf(HttpResponse<String> response, Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            return cause instanceof java.net.http.HttpTimeoutException ? "timeout" : "io_error";
+        }
+        if (response.statusCode() != 200) {
+            return "http_" + response.statusCode();
+        }
+        try {
+            return new JSONObject(response.body()).optString("status", "unknown");
+        } catch (Exception e) {
+            return "invalid_json";
+        }
+    }
+
+    /* ─────────────────────── Reporting ─────────────────────── */
+
+    static void printStage(StageStats stats) {
+        long[] sorted = stats.latenciesMs.stream().mapToLong(Long::longValue).sorted().toArray();
+        double rps = stats.elapsedMs == 0 ? 0 : sorted.length * 1000.0 / stats.elapsedMs;
+        System.out.printf("   sent %d, completed %d, errors %d (%.1f%%), skipped %d, %.1f req/s%n",
+                stats.sent.get(), sorted.length, stats.errors(),
+                sorted.length == 0 ? 0 : stats.errors() * 100.0 / sorted.length, stats.skipped.get(), rps);
+        System.out.printf("   latency p50 %d ms, p90 %d ms, p95 %d ms, p99 %d ms%n",
+                ContactFormBatch.percentile(sorted, 50), ContactFormBatch.percentile(sorted, 90),
+                ContactFormBatch.percentile(sorted, 95), ContactFormBatch.percentile(sorted, 99));
+        System.out.println("   outcomes " + stats.outcomes);
+    }
+
+    static void saveReport(List<StageStats> results, String fileName) {
+        try (Workbook workbook = new XSSFWorkbook();
+             FileOutputStream out = new FileOutputStream(fileName)) {
+            Sheet sheet = workbook.createSheet("Load Stages");
+            String[] headers = {"Stage", "Sent", "Completed", "Errors", "Error %", "Skipped",
+                    "Achieved req/s", "p50 (ms)", "p90 (ms)", "p95 (ms)", "p99 (ms)", "Max (ms)", "Outcomes"};
+            Row headerRow = sheet.createRow(0);
+            for (int i = 0; i < headers.length; i++) {
+                headerRow.createCell(i).setCellValue(headers[i]);
+            }
+            int rowNum = 1;
+            for (StageStats stats : results) {
+                long[] sorted = stats.latenciesMs.stream().mapToLong(Long::longValue).sorted().toArray();
+                Row row = sheet.createRow(rowNum++);
+                row.createCell(0).setCellValue(stats.stage.toString());
+                row.createCell(1).setCellValue(stats.sent.get());
+                row.createCell(2).setCellValue(sorted.length);
+                row.createCell(3).setCellValue(stats.errors());
+                row.createCell(4).setCellValue(sorted.length == 0 ? 0 : stats.errors() * 100.0 / sorted.length);
+                row.createCell(5).setCellValue(stats.skipped.get());
+                row.createCell(6).setCellValue(stats.elapsedMs == 0 ? 0 : sorted.length * 1000.0 / stats.elapsedMs);
+                row.createCell(7).setCellValue(ContactFormBatch.percentile(sorted, 50));
+                row.createCell(8).setCellValue(ContactFormBatch.percentile(sorted, 90));
+                row.createCell(9).setCellValue(ContactFormBatch.percentile(sorted, 95));
+                row.createCell(10).setCellValue(ContactFormBatch.percentile(sorted, 99));
+                row.createCell(11).setCellValue(sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+                row.createCell(12).setCellValue(stats.outcomes.toString());
+            }
+            workbook.write(out);
+            System.out.println("\n✅ Load report saved at: " + fileName);
+        } catch (Exception e) {
+            System.out.println("❌ Error saving load report: " + e.getMessage());
+        }
+    }
+
+    /* ─────────────────────── Stand‑in server ─────────────────────── */
+
+    /**
+     * Starts a minimal CF7 look‑alike: a form page with the usual hidden fields
+     * and a feedback endpoint answering "mail_sent" after a random delay.
+     *
+     * @param port         0 for any free port.
+     * @param minDelayMs   Lower bound of the simulated processing time.
+     * @param jitterMs     Random extra delay added on top.
+     */
+    static HttpServer startStandIn(int port, int minDelayMs, int jitterMs) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        addStandIn(server, minDelayMs, jitterMs);
+        server.start();
+        return server;
+    }
+
+    /** Registers the stand‑in's form page and feedback endpoint on an existing server. */
+    static void addStandIn(HttpServer server, int minDelayMs, int jitterMs) {
+        server.createContext("/contact-us/", exchange -> {
+            int actualPort = server.getAddress().getPort();
+            String html = "<html><head><script>var wpcf7 = {\"api\":{\"root\":\"http:\\/\\/localhost:" + actualPort
+                    + "\\/wp-json\\/\",\"namespace\":\"contact-form-7\\/v1\"}};</script></head><body>"
+                    + "<form action=\"/contact-us/#wpcf7-f42-o1\" method=\"post\" class=\"wpcf7-form init\" data-status=\"init\">"
+                    + "<input type=\"hidden\" name=\"_wpcf7\" value=\"42\" />"
+                    + "<input type=\"hidden\" name=\"_wpcf7_version\" value=\"5.9\" />"
+                    + "<input type=\"hidden\" name=\"_wpcf7_locale\" value=\"en_US\" />"
+                    + "<input type=\"hidden\" name=\"_wpcf7_unit_tag\" value=\"wpcf7-f42-o1\" />"
+                    + "<input type=\"hidden\" name=\"_wpcf7_container_post\" value=\"0\" />"
+                    + "<input type=\"text\" name=\"your-name\" /><input type=\"email\" name=\"email\" />"
+                    + "<input type=\"submit\" class=\"wpcf7-submit\" value=\"Send\" />"
+                    + "<div class=\"wpcf7-response-output\"></div></form></body></html>";
+            respond(exchange, 200, "text/html", html);
+        });
+
+        server.createContext("/wp-json/contact-form-7/v1/contact-forms/", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            String text = new String(body, StandardCharsets.UTF_8);
+            try {
+                Thread.sleep(minDelayMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextInt(jitterMs) : 0));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String status = text.contains("name=\"_wpcf7\"") ? "mail_sent" : "validation_failed";
+            respond(exchange, 200, "application/json",
+                    "{\"contact_form_id\":42,\"status\":\"" + status + "\",\"message\":\"Thank you for your message.\"}");
+        });
+    }
+
+    static void respond(com.sun.net.httpserver.HttpExchange exchange, int status,
+                        String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -3,22 +3,32 @@ import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.time.Duration;
 
 public class ContactFormSubmitter {
 
+    static final String FORM_URL = "https://addwebsolutionstaging.mystagingwebsite.com/contact-us";
+
+    // One screenshot-store run per invocation, however many rows a batch submits
+    private static final String RUN_ID = ScreenshotStore.newRunId();
+
+    // Contact Form 7 marks the <form> with data-status once the AJAX submit has a result
+    private static final String FORM_STATUS_SCRIPT =
+            "if (location.href.indexOf('thank-you') >= 0) return 'thank-you';" +
+            "var form = document.querySelector('form.wpcf7-form');" +
+            "var out = document.querySelector('.wpcf7-response-output');" +
+            "if (!form || !out || !out.textContent.trim()) return null;" +
+            "var status = form.getAttribute('data-status') || '';" +
+            "return ['init', 'validating', 'submitting', 'resetting'].indexOf(status) >= 0 ? null : status;";
+
     public static void main(String[] args) {
         String name = "Girish-Addweb";
         String email = "johnnyharpertesting20@gmail.com";
         String phone = "9157382201";
         String description = "This is for the testing.";
 
-        if (name == null || name.equalsIgnoreCase("Name") || name.trim().isEmpty()) {
+        if (isHeaderOrEmpty(name)) {
             System.out.println("Skipping header row or empty data");
             return;
         }
@@ -26,63 +36,69 @@ public class ContactFormSubmitter {
         System.setProperty("Webdriver.chrome.driver",
                 System.getProperty("user.dir") + "/chromedriver");
         WebDriver driver = new ChromeDriver();
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
 
         try {
-            driver.get("https://addwebsolutionstaging.mystagingwebsite.com/contact-us");
-            System.out.println("Page loaded for user: " + name);
-
-            WebElement nameField = wait.until(ExpectedConditions.presenceOfElementLocated(By.name("your-name")));
-            nameField.clear();
-            nameField.sendKeys(name);
+            String status = submitForm(driver, name, email, phone, description);
+            System.out.println("Form submitted for user: " + name + " (" + status + ")");
 
-            WebElement emailField = driver.findElement(By.name("email"));
-            emailField.clear();
-            emailField.sendKeys(email);
+            // Capture screenshot after form submission/redirect
+            takeScreenshot(driver, "thank-you-" + name);
 
-            WebElement phoneField = driver.findElement(By.name("phone"));
-            phoneField.clear();
-            phoneField.sendKeys(phone);
+        } catch (Exception e) {
+            System.err.println("Error processing form for user " + name + ": " + e.getMessage());
+        } finally {
+            driver.quit();
+        }
+    }
 
-            WebElement messageField = driver.findElement(By.name("message"));
-            messageField.clear();
-            messageField.sendKeys(description);
+    /** True for the spreadsheet header row ("Name") or a row without a name. */
+    static boolean isHeaderOrEmpty(String name) {
+        return name == null || name.equalsIgnoreCase("Name") || name.trim().isEmpty();
+    }
 
-            Thread.sleep(1000); // Optional delay
+    /**
+     * Loads the contact form, fills it and submits it, waiting on the page's own
+     * result signal instead of fixed sleeps.
+     *
+     * @return "thank-you" after a redirect, otherwise the CF7 form status
+     *         (sent, invalid, spam, failed, …).
+     */
+    static String submitForm(WebDriver driver, String name, String email,
+                             String phone, String description) {
+        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
+        driver.get(FORM_URL);
+        System.out.println("Page loaded for user: " + name);
 
-            WebElement submitButton = driver.findElement(By.cssSelector("input.wpcf7-submit"));
-            submitButton.click();
+        WebElement nameField = wait.until(ExpectedConditions.presenceOfElementLocated(By.name("your-name")));
+        nameField.clear();
+        nameField.sendKeys(name);
 
-            System.out.println("Form submitted for user: " + name);
+        WebElement emailField = driver.findElement(By.name("email"));
+        emailField.clear();
+        emailField.sendKeys(email);
 
-            // Wait for either a Thank You page redirect OR success message
-            Thread.sleep(3000); // wait for possible redirection
+        WebElement phoneField = driver.findElement(By.name("phone"));
+        phoneField.clear();
+        phoneField.sendKeys(phone);
 
-            // Check if URL changed to Thank You page (update this URL if needed)
-            wait.until(ExpectedConditions.or(
-                    ExpectedConditions.urlContains("thank-you"),
-                    ExpectedConditions.presenceOfElementLocated(By.cssSelector(".wpcf7-response-output"))
-            ));
+        WebElement messageField = driver.findElement(By.name("message"));
+        messageField.clear();
+        messageField.sendKeys(description);
 
-            // Capture screenshot after form submission/redirect
-            takeScreenshot(driver, "thank-you-" + name);
+        WebElement submitButton = wait.until(ExpectedConditions.elementToBeClickable(By.cssSelector("input.wpcf7-submit")));
+        submitButton.click();
 
-        } catch (Exception e) {
-            System.err.println("Error processing form for user " + name + ": " + e.getMessage());
-        } finally {
-            driver.quit();
-        }
+        // Wait for either a Thank You page redirect OR a filled-in response message
+        return wait.until(d -> (String) ((JavascriptExecutor) d).executeScript(FORM_STATUS_SCRIPT));
     }
 
-    private static void takeScreenshot(WebDriver driver, String fileNamePrefix) {
+    static void takeScreenshot(WebDriver driver, String fileNamePrefix) {
         try {
-            File scrFile = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
-            String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
-            String filename = fileNamePrefix + "-" + timestamp + ".png";
-            File destFile = new File(System.getProperty("user.dir") + "/screenshots/" + filename);
-            destFile.getParentFile().mkdirs(); // Create directory if not exists
-            Files.copy(scrFile.toPath(), destFile.toPath());
-            System.out.println("Screenshot saved: " + destFile.getAbsolutePath());
+            byte[] png = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+            // Identical thank-you pages are stored once; the index keeps one line per run
+            ScreenshotStore store = ScreenshotStore.openDefault("contact-form");
+            String hash = store.record(RUN_ID, driver.getCurrentUrl(), fileNamePrefix, png);
+            System.out.println("Screenshot saved: " + store.objectPath(hash).toAbsolutePath());
         } catch (IOException e) {
             System.err.println("Failed to save screenshot: " + e.getMessage());
         }
@@ -0,0 +1,300 @@
+/**
+ * CrawlPipeline.java
+ *
+ * Streaming crawl: pages are checked and reported while the sitemaps are
+ * still being read, instead of read‑all → visit‑all → write‑all.
+ *
+ * Stages, each with its own threads, joined by bounded queues
+ *   discovery ─▶ frontier ─▶ fetch ─▶ checks ─▶ sink
+ *   • discovery – streams <loc> entries out of each sitemap as it downloads
+ *                 (StAX, .xml or .xml.gz); sitemap indexes feed their child
+ *                 sitemaps back into this stage
+ *   • frontier  – drops URLs already seen (one thread)
+ *   • fetch     – the tool's fetch / render of one page
+ *   • checks    – the tool's checks, turning a fetched page into results
+ *   • sink      – the tool's report writer (one thread, so POI needs no locking)
+ *
+ * A full queue blocks the stage feeding it, so a slow stage throttles every
+ * stage before it and memory stays bounded by the queue sizes – apart from
+ * the frontier's set of seen URLs. When a stage's input is exhausted a poison
+ * pill travels down the queues and the run ends once the sink has drained.
+ * An item that fails – even with an Error – is logged and skipped, and a
+ * worker passes the pill on however it ends, so a run cannot hang on it.
+ *
+ * Scope: only Sitemap404Checker runs on the pipeline so far. The browser
+ * tools stay phased on PageCrawler, which they need for its per‑page
+ * deadline, retries and hedged loads, a browser per worker and
+ * TemplateSampler's widen rounds. Moving one over means giving the fetch
+ * stage those first.
+ *
+ * Tuning (system properties)
+ *   • pipeline.discovery – sitemap readers (default 2)
+ *   • pipeline.fetch     – fetch threads (default: the tool's choice)
+ *   • pipeline.checks    – check threads (default 2)
+ *   • pipeline.queue     – capacity of each queue between stages (default 256)
+ */
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+public class CrawlPipeline<P, R> {
+
+    static final int DISCOVERY_THREADS = Integer.getInteger("pipeline.discovery", 2);
+    static final int CHECK_THREADS = Integer.getInteger("pipeline.checks", 2);
+    static final int QUEUE = Integer.getInteger("pipeline.queue", 256);
+
+    /** Loads one page, e.g. its HTTP status or a rendered browser state. */
+    interface Fetch<P> {
+        P fetch(String url) throws Exception;
+    }
+
+    /** Turns one fetched page into zero or more report results. */
+    interface Check<P, R> {
+        List<R> check(Page<P> page) throws Exception;
+    }
+
+    /** Receives every result, always on the same thread. */
+    interface Sink<R> {
+        void accept(R result) throws Exception;
+    }
+
+    /** A page on its way through the pipeline. */
+    static class Page<P> {
+        final String sitemap;
+        final String url;
+        P content;
+        String error;   // fetch failure, content is null
+
+        Page(String sitemap, String url) {
+            this.sitemap = sitemap;
+            this.url = url;
+        }
+    }
+
+    /** Counters for one run. */
+    static class Stats {
+        final AtomicInteger sitemaps = new AtomicInteger();
+        final AtomicLong discovered = new AtomicLong();
+        final AtomicLong duplicates = new AtomicLong();
+        final AtomicLong fetched = new AtomicLong();
+        final AtomicLong fetchErrors = new AtomicLong();
+        final AtomicLong results = new AtomicLong();
+        final AtomicLong firstResultMs = new AtomicLong(-1);
+        long elapsedMs;
+    }
+
+    // End of input for a queue; every worker passes it on to its siblings before exiting
+    private static final Object POISON = new Object();
+
+    private final int fetchThreads;
+    private final Fetch<P> fetch;
+    private final Check<P, R> check;
+    private final Sink<R> sink;
+    private final List<Thread> threads = new ArrayList<>();
+    private final Stats stats = new Stats();
+    private long startNanos;
+
+    /**
+     * @param fetchThreads Default fetch parallelism, overridden by -Dpipeline.fetch.
+     */
+    CrawlPipeline(int fetchThreads, Fetch<P> fetch, Check<P, R> check, Sink<R> sink) {
+        this.fetchThreads = Integer.getInteger("pipeline.fetch", fetchThreads);
+        this.fetch = fetch;
+        this.check = check;
+        this.sink = sink;
+    }
+
+    /* ─────────────────────── Running ─────────────────────── */
+
+    /** Runs every stage until all pages reachable from the sitemaps have reached the sink. */
+    Stats run(List<String> sitemaps) throws InterruptedException {
+        startNanos = System.nanoTime();
+        BlockingQueue<Object> sitemapQueue = new LinkedBlockingQueue<>();   // few entries; unbounded so indexes can re‑queue
+        BlockingQueue<Object> discovered = new ArrayBlockingQueue<>(QUEUE);
+        BlockingQueue<Object> frontier = new ArrayBlockingQueue<>(QUEUE);
+        BlockingQueue<Object> fetched = new ArrayBlockingQueue<>(QUEUE);
+        BlockingQueue<Object> results = new ArrayBlockingQueue<>(QUEUE);
+
+        Set<String> seenSitemaps = ConcurrentHashMap.newKeySet();   // guards against index loops
+        for (String sitemap : sitemaps) {
+            if (seenSitemaps.add(sitemap)) {
+                sitemapQueue.put(sitemap);
+            }
+        }
+        AtomicInteger pendingSitemaps = new AtomicInteger(seenSitemaps.size());
+        if (seenSitemaps.isEmpty()) {
+            sitemapQueue.put(POISON);
+        }
+
+        stage("discovery", DISCOVERY_THREADS, sitemapQueue, discovered, (item, out) -> {
+            try {
+                discover((String) item, out, sitemapQueue, seenSitemaps, pendingSitemaps);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                System.out.println("❌ Failed to parse sitemap: " + item + " - " + e.getMessage());
+            } finally {
+                if (pendingSitemaps.decrementAndGet() == 0) {
+                    sitemapQueue.put(POISON);
+                }
+            }
+        });
+
+        Set<String> seen = new HashSet<>();
+        stage("frontier", 1, discovered, frontier, (item, out) -> {
+            if (seen.add(((Page<?>) item).url)) {
+                out.put(item);
+            } else {
+                stats.duplicates.incrementAndGet();
+            }
+        });
+
+        stage("fetch", fetchThreads, frontier, fetched, (item, out) -> {
+            @SuppressWarnings("unchecked")
+            Page<P> page = (Page<P>) item;
+            try {
+                page.content = fetch.fetch(page.url);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                page.error = e.getMessage() == null ? e.toString() : e.getMessage();
+                stats.fetchErrors.incrementAndGet();
+            }
+            stats.fetched.incrementAndGet();
+            out.put(page);
+        });
+
+        stage("checks", CHECK_THREADS, fetched, results, (item, out) -> {
+            @SuppressWarnings("unchecked")
+            Page<P> page = (Page<P>) item;
+            for (R result : check.check(page)) {
+                out.put(result);
+            }
+        });
+
+        stage("sink", 1, results, null, (item, out) -> {
+            @SuppressWarnings("unchecked")
+            R result = (R) item;
+            stats.firstResultMs.compareAndSet(-1, elapsedMs());
+            stats.results.incrementAndGet();
+            sink.accept(result);
+        });
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        stats.elapsedMs = elapsedMs();
+        System.out.println("🧵 Pipeline: " + stats.sitemaps.get() + " sitemaps, " + stats.discovered.get()
+                + " URLs (" + stats.duplicates.get() + " duplicates), " + stats.fetched.get() + " fetched ("
+                + stats.fetchErrors.get() + " failed), " + stats.results.get() + " results in "
+                + stats.elapsedMs / 1000.0 + " s; first result after " + stats.firstResultMs.get() / 1000.0 + " s");
+        return stats;
+    }
+
+    private long elapsedMs() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private interface Work {
+        void process(Object item, BlockingQueue<Object> out) throws Exception;
+    }
+
+    // Starts `count` workers on `in`; the last worker to see the pill forwards it to `out`
+    private void stage(String name, int count, BlockingQueue<Object> in, BlockingQueue<Object> out, Work work) {
+        AtomicInteger alive = new AtomicInteger(count);
+        for (int i = 0; i < count; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    while (true) {
+                        Object item = in.take();
+                        if (item == POISON) {
+                            in.put(POISON);
+                            break;
+                        }
+                        try {
+                            work.process(item, out);
+                        } catch (InterruptedException e) {
+                            throw e;
+                        } catch (Exception e) {
+                            System.out.println("⚠️ [" + name + "] " + e.getMessage());
+                        } catch (Error e) {
+                            // A dead worker would leave its queue unread and block the stage before it
+                            System.out.println("❌ [" + name + "] " + e);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    // However the worker ends – otherwise the stages after this one, and run(), wait forever
+                    if (alive.decrementAndGet() == 0 && out != null) {
+                        forwardPoison(out);
+                    }
+                }
+            }, "pipeline-" + name + "-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+    }
+
+    private static void forwardPoison(BlockingQueue<Object> out) {
+        try {
+            out.put(POISON);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /* ─────────────────────── Discovery ─────────────────────── */
+
+    // Streams <url><loc> entries to `out`; <sitemap><loc> entries of an index go back to `sitemaps`
+    private void discover(String sitemapUrl, BlockingQueue<Object> out, BlockingQueue<Object> sitemaps,
+                          Set<String> seenSitemaps, AtomicInteger pendingSitemaps) throws Exception {
+        System.out.println("🔍 Parsing sitemap: " + sitemapUrl);
+        stats.sitemaps.incrementAndGet();
+        HttpURLConnection connection = (HttpURLConnection) new URL(sitemapUrl).openConnection();
+        connection.setConnectTimeout(10000);
+        connection.setReadTimeout(30000);
+        try (InputStream raw = connection.getInputStream();
+             InputStream in = sitemapUrl.endsWith(".gz") ? new GZIPInputStream(raw) : raw) {
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            XMLStreamReader xml = factory.createXMLStreamReader(in);
+            boolean inIndexEntry = false;
+            try {
+                while (xml.hasNext()) {
+                    int event = xml.next();
+                    if (event == XMLStreamConstants.START_ELEMENT && "sitemap".equals(xml.getLocalName())) {
+                        inIndexEntry = true;
+                    } else if (event == XMLStreamConstants.END_ELEMENT && "sitemap".equals(xml.getLocalName())) {
+                        inIndexEntry = false;
+                    } else if (event == XMLStreamConstants.START_ELEMENT && "loc".equals(xml.getLocalName())) {
+                        String loc = xml.getElementText().trim();
+                        if (loc.isEmpty()) {
+                            continue;
+                        }
+                        if (inIndexEntry) {
+                            if (seenSitemaps.add(loc)) {
+                                pendingSitemaps.incrementAndGet();
+                                sitemaps.put(loc);
+                            }
+                        } else {
+                            stats.discovered.incrementAndGet();
+                            out.put(new Page<P>(sitemapUrl, loc));   // blocks while the frontier is full
+                        }
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+        }
+    }
+}
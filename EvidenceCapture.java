@@ -0,0 +1,278 @@
+/**
+ * EvidenceCapture.java
+ *
+ * Keeps proof of what a flagged page looked like, so a finding can be
+ * reproduced without visiting the page again by hand.
+ *
+ * For pages with findings only, the crawl thread grabs the raw material
+ * (screenshot as base64 from Chrome, the current DOM, the page's DevTools
+ * network events) and hands it to a small bounded pool. The pool does the
+ * slow part – decoding and writing the PNG, gzipping the DOM, building the
+ * HAR – while the crawl worker moves on to the next URL. When the queue is
+ * full the crawl thread writes the bundle itself, which slows the crawl down
+ * instead of letting captured pages pile up in memory. A URL is captured at
+ * most once per run – a retried or hedged load gets the first bundle's link.
+ *
+ * Layout (default: <project>/evidence/<run id>/<page slug>-<hash>/)
+ *   • index.html     – findings, screenshot and links; what report rows point to
+ *   • screenshot.png – viewport screenshot
+ *   • dom.html.gz    – document.documentElement.outerHTML at capture time
+ *   • network.har    – HAR 1.2 built from Network.* events (importable in DevTools)
+ *
+ * Tuning (system properties)
+ *   • evidence          – false to disable capture (default true)
+ *   • evidence.threads  – writer threads (default 2)
+ *   • evidence.queue    – bundles waiting to be written (default 16)
+ */
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+public class EvidenceCapture implements Closeable {
+
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("evidence", "true"));
+    static final int THREADS = Integer.getInteger("evidence.threads", 2);
+    static final int QUEUE = Integer.getInteger("evidence.queue", 16);
+
+    private final Path root;
+    private final ThreadPoolExecutor writers;
+    private final Set<String> bundles = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger written = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    EvidenceCapture(Path root) {
+        this.root = root;
+        this.writers = new ThreadPoolExecutor(THREADS, THREADS, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /** Store for this run under <project>/evidence/<run id>. */
+    static EvidenceCapture openDefault() {
+        return new EvidenceCapture(Paths.get(System.getProperty("user.dir"), "evidence", ScreenshotStore.newRunId()));
+    }
+
+    /* ─────────────────────── Capture ─────────────────────── */
+
+    /**
+     * Captures the page currently loaded in the driver. Only the driver calls
+     * run on the calling thread; encoding and disk writes are queued.
+     *
+     * @param events   The page's DevTools performance‑log messages (may be empty).
+     * @param findings Text of each finding, listed in the bundle's index.html.
+     * @return Path of the bundle's index.html relative to the project folder,
+     *         for report links; "" when the browser could not be captured.
+     */
+    String capture(WebDriver driver, String pageUrl, List<JSONObject> events, List<String> findings) {
+        Path bundle = root.resolve(bundleName(pageUrl));
+        if (!bundles.add(bundle.getFileName().toString())) {
+            return link(bundle);   // already queued by an earlier load of the same URL
+        }
+        String screenshot;
+        String dom;
+        try {
+            screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BASE64);
+            dom = driver.getPageSource();
+        } catch (Exception e) {
+            System.out.println("⚠️ Evidence capture failed: " + pageUrl + " - " + e.getMessage());
+            failed.incrementAndGet();
+            bundles.remove(bundle.getFileName().toString());
+            return "";
+        }
+        List<JSONObject> eventsCopy = new ArrayList<>(events);
+        List<String> findingsCopy = new ArrayList<>(findings);
+        writers.execute(() -> write(bundle, pageUrl, screenshot, dom, eventsCopy, findingsCopy));
+        return link(bundle);
+    }
+
+    // index.html of the bundle relative to the project folder
+    private static String link(Path bundle) {
+        return Paths.get(System.getProperty("user.dir")).toAbsolutePath()
+                .relativize(bundle.resolve("index.html").toAbsolutePath()).toString().replace('\\', '/');
+    }
+
+    // <last path segments>-<8 hex of the URL hash>, safe as a folder name
+    static String bundleName(String pageUrl) {
+        String slug = pageUrl.replaceFirst("^https?://", "").replaceAll("[^A-Za-z0-9]+", "-").replaceAll("^-|-$", "");
+        if (slug.length() > 60) {
+            slug = slug.substring(slug.length() - 60).replaceAll("^-", "");
+        }
+        return slug + "-" + ScreenshotStore.hash(pageUrl.getBytes(StandardCharsets.UTF_8)).substring(0, 8);
+    }
+
+    private void write(Path bundle, String pageUrl, String screenshot, String dom,
+                       List<JSONObject> events, List<String> findings) {
+        try {
+            Files.createDirectories(bundle);
+            Files.write(bundle.resolve("screenshot.png"), Base64.getMimeDecoder().decode(screenshot));
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(bundle.resolve("dom.html.gz")))) {
+                out.write(dom.getBytes(StandardCharsets.UTF_8));
+            }
+            Files.write(bundle.resolve("network.har"), har(pageUrl, events).toString().getBytes(StandardCharsets.UTF_8));
+            Files.write(bundle.resolve("index.html"), index(pageUrl, findings).getBytes(StandardCharsets.UTF_8));
+            written.incrementAndGet();
+        } catch (Exception e) {
+            System.out.println("⚠️ Could not write evidence for " + pageUrl + " - " + e.getMessage());
+            failed.incrementAndGet();
+        }
+    }
+
+    /** Waits for queued bundles to be written. */
+    @Override
+    public void close() {
+        writers.shutdown();
+        try {
+            writers.awaitTermination(10, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("📎 Evidence: " + written.get() + " bundles in " + root
+                + (failed.get() > 0 ? " (" + failed.get() + " failed)" : ""));
+    }
+
+    /* ─────────────────────── HAR ─────────────────────── */
+
+    /** HAR 1.2 log of one page from Network.requestWillBeSent / responseReceived / loadingFinished / loadingFailed. */
+    static JSONObject har(String pageUrl, List<JSONObject> events) {
+        Map<String, JSONObject> entries = new LinkedHashMap<>();
+        Map<String, Double> startedAt = new HashMap<>();
+        String pageStarted = null;
+        for (JSONObject event : events) {
+            String method = event.optString("method");
+            JSONObject params = event.optJSONObject("params");
+            if (params == null || !method.startsWith("Network.")) {
+                continue;
+            }
+            String id = params.optString("requestId");
+            JSONObject entry = entries.get(id);
+            if ("Network.requestWillBeSent".equals(method) && params.optJSONObject("request") != null) {
+                if (entry != null) {
+                    // A redirect reuses the request id: keep the earlier hop as its own entry
+                    entries.put(id + "@" + entries.size(), entries.remove(id));
+                }
+                JSONObject request = params.getJSONObject("request");
+                String started = Instant.ofEpochMilli(Math.round(params.optDouble("wallTime", 0) * 1000)).toString();
+                if (pageStarted == null) {
+                    pageStarted = started;
+                }
+                entries.put(id, new JSONObject()
+                        .put("pageref", "page_1")
+                        .put("startedDateTime", started)
+                        .put("time", 0)
+                        .put("_resourceType", params.optString("type", ""))
+                        .put("request", new JSONObject()
+                                .put("method", request.optString("method", "GET"))
+                                .put("url", request.optString("url"))
+                                .put("httpVersion", "")
+                                .put("headers", headers(request.optJSONObject("headers")))
+                                .put("queryString", new JSONArray())
+                                .put("cookies", new JSONArray())
+                                .put("headersSize", -1)
+                                .put("bodySize", -1))
+                        .put("response", response(0, "", "", new JSONArray(), ""))
+                        .put("cache", new JSONObject())
+                        .put("timings", new JSONObject().put("send", 0).put("wait", 0).put("receive", 0)));
+                startedAt.put(id, params.optDouble("timestamp", 0));
+            } else if (entry == null) {
+                continue;
+            } else if ("Network.responseReceived".equals(method) && params.optJSONObject("response") != null) {
+                JSONObject response = params.getJSONObject("response");
+                entry.put("response", response(response.optInt("status", 0), response.optString("statusText", ""),
+                        response.optString("protocol", ""), headers(response.optJSONObject("headers")),
+                        response.optString("mimeType", "")));
+                entry.put("serverIPAddress", response.optString("remoteIPAddress", ""));
+                JSONObject timing = response.optJSONObject("timing");
+                if (timing != null) {
+                    entry.getJSONObject("timings")
+                            .put("send", Math.max(0, timing.optDouble("sendEnd", 0) - timing.optDouble("sendStart", 0)))
+                            .put("wait", Math.max(0, timing.optDouble("receiveHeadersEnd", 0) - timing.optDouble("sendEnd", 0)));
+                }
+            } else if ("Network.loadingFinished".equals(method) || "Network.loadingFailed".equals(method)) {
+                double time = Math.max(0, (params.optDouble("timestamp", 0) - startedAt.getOrDefault(id, 0.0)) * 1000);
+                JSONObject timings = entry.getJSONObject("timings");
+                entry.put("time", time);
+                timings.put("receive", Math.max(0, time - timings.optDouble("send", 0) - timings.optDouble("wait", 0)));
+                JSONObject response = entry.getJSONObject("response");
+                if ("Network.loadingFinished".equals(method)) {
+                    long bytes = params.optLong("encodedDataLength", 0);
+                    response.put("bodySize", bytes);
+                    response.getJSONObject("content").put("size", bytes);
+                } else {
+                    response.put("_error", params.optString("errorText", ""));
+                }
+            }
+        }
+
+        JSONArray list = new JSONArray();
+        for (JSONObject entry : entries.values()) {
+            list.put(entry);
+        }
+        return new JSONObject().put("log", new JSONObject()
+                .put("version", "1.2")
+                .put("creator", new JSONObject().put("name", "EvidenceCapture").put("version", "1.0"))
+                .put("pages", new JSONArray().put(new JSONObject()
+                        .put("startedDateTime", pageStarted == null ? Instant.now().toString() : pageStarted)
+                        .put("id", "page_1")
+                        .put("title", pageUrl)
+                        .put("pageTimings", new JSONObject())))
+                .put("entries", list));
+    }
+
+    private static JSONObject response(int status, String statusText, String protocol, JSONArray headers, String mimeType) {
+        return new JSONObject()
+                .put("status", status)
+                .put("statusText", statusText)
+                .put("httpVersion", protocol)
+                .put("headers", headers)
+                .put("cookies", new JSONArray())
+                .put("content", new JSONObject().put("size", 0).put("mimeType", mimeType))
+                .put("redirectURL", "")
+                .put("headersSize", -1)
+                .put("bodySize", -1);
+    }
+
+    // DevTools sends headers as an object; HAR wants [{name, value}]
+    private static JSONArray headers(JSONObject headers) {
+        JSONArray list = new JSONArray();
+        if (headers != null) {
+            for (String name : headers.keySet()) {
+                list.put(new JSONObject().put("name", name).put("value", headers.optString(name)));
+            }
+        }
+        return list;
+    }
+
+    /* ─────────────────────── Index page ─────────────────────── */
+
+    private static String index(String pageUrl, List<String> findings) {
+        StringBuilder html = new StringBuilder("<!DOCTYPE html><html><head><meta charset=\"utf-8\"><title>Evidence – ")
+                .append(escape(pageUrl)).append("</title><style>body{font:14px system-ui,sans-serif;margin:16px}")
+                .append("li{margin:4px 0;font-family:monospace;white-space:pre-wrap}img{max-width:100%;border:1px solid #ccc}</style>")
+                .append("</head><body><h2>").append(escape(pageUrl)).append("</h2><p>Captured ")
+                .append(escape(Instant.now().toString())).append(" · <a href=\"").append(escape(pageUrl))
+                .append("\">live page</a> · <a href=\"dom.html.gz\">DOM</a> · <a href=\"network.har\">HAR</a></p>")
+                .append("<h3>Findings</h3><ul>");
+        for (String finding : findings) {
+            html.append("<li>").append(escape(finding)).append("</li>");
+        }
+        return html.append("</ul><img src=\"screenshot.png\" alt=\"Screenshot\"></body></html>").toString();
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * FontPolicy.java
+ *
+ * Which font families may (and may not) be used, per CSS selector.
+ *
+ * Loaded from a JSON file, e.g.
+ *   [
+ *     {"selector": "h1,h2,h3", "allowed": ["inter"], "forbidden": ["neue montreal"]},
+ *     {"selector": "p,li,a",   "forbidden": ["neue montreal", "arial"]}
+ *   ]
+ *
+ * Rule semantics (family names compared lower‑case, without quotes):
+ *   • forbidden – violation if the family appears anywhere in the stack
+ *   • allowed   – if non‑empty, the first (primary) family must be one of them
+ */
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+public class FontPolicy {
+
+    /** Allowed/forbidden families for the elements matching one selector. */
+    static class Rule {
+        final String selector;
+        final List<String> allowed;
+        final List<String> forbidden;
+
+        Rule(String selector, List<String> allowed, List<String> forbidden) {
+            this.selector = selector;
+            this.allowed = allowed;
+            this.forbidden = forbidden;
+        }
+
+        /** Shape passed to in‑page scripts via executeScript. */
+        Map<String, Object> toScriptArgument() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("selector", selector);
+            map.put("allowed", allowed);
+            map.put("forbidden", forbidden);
+            return map;
+        }
+    }
+
+    final List<Rule> rules;
+
+    FontPolicy(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    /** Reads a policy file in the format shown above. */
+    static FontPolicy load(File file) throws IOException {
+        return fromJson(new JSONArray(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8)));
+    }
+
+    /** Builds a policy from an already parsed rule array. */
+    static FontPolicy fromJson(JSONArray array) {
+        List<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject rule = array.getJSONObject(i);
+            rules.add(new Rule(rule.getString("selector"),
+                    families(rule.optJSONArray("allowed")),
+                    families(rule.optJSONArray("forbidden"))));
+        }
+        return new FontPolicy(rules);
+    }
+
+    /** One rule forbidding {@code family} on the given selector. */
+    static FontPolicy forbid(String selector, String family) {
+        return new FontPolicy(Collections.singletonList(
+                new Rule(selector, Collections.emptyList(), Collections.singletonList(normalize(family)))));
+    }
+
+    /** Every family forbidden by any rule. */
+    Set<String> forbiddenFamilies() {
+        Set<String> all = new LinkedHashSet<>();
+        for (Rule rule : rules) {
+            all.addAll(rule.forbidden);
+        }
+        return all;
+    }
+
+    /** Whether any rule restricts the primary family to an allowed list. */
+    boolean hasAllowedLists() {
+        for (Rule rule : rules) {
+            if (!rule.allowed.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    List<Map<String, Object>> toScriptArgument() {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Rule rule : rules) {
+            list.add(rule.toScriptArgument());
+        }
+        return list;
+    }
+
+    /** Lower‑case, unquoted, single‑spaced family name. */
+    static String normalize(String family) {
+        return family.toLowerCase().replaceAll("[\"']", "").replaceAll("\\s+", " ").trim();
+    }
+
+    private static List<String> families(JSONArray array) {
+        List<String> list = new ArrayList<>();
+        if (array != null) {
+            for (int i = 0; i < array.length(); i++) {
+                list.add(normalize(array.getString(i)));
+            }
+        }
+        return list;
+    }
+}
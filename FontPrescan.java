@@ -0,0 +1,373 @@
+/**
+ * FontPrescan.java
+ *
+ * HTTP‑only pre‑scan that finds which pages can possibly use a forbidden font,
+ * so the expensive browser audit (FontVerification) only renders those pages.
+ *
+ * For every sitemap page it downloads the HTML (no browser), collects the
+ * <link rel="stylesheet"> and <link rel="preload" as="style"> URLs, inline
+ * <style> blocks and style="" / style='' attributes,
+ * then extracts @font-face families and font / font-family / --*font*
+ * declarations. Each distinct stylesheet is fetched once per URL and parsed
+ * once per content hash – a theme CSS served as style.css?ver=1 and ?ver=2
+ * with the same bytes is parsed a single time.
+ *
+ * Output
+ *   • FontPrescanReport.xlsx          – "Pages" and "Stylesheets" sheets
+ *   • font-prescan-candidates.txt     – pages that reference a forbidden family;
+ *     feed it to FontVerification with -Dfont.pages=font-prescan-candidates.txt
+ *
+ * The check is deliberately conservative: a forbidden family anywhere in a
+ * page's CSS makes it a candidate, whichever selector it is attached to.
+ * Allowed lists cannot be checked from CSS alone (an element may inherit a
+ * family from anywhere, or none at all), so when any policy rule has one,
+ * every page stays a candidate and only the report benefits from the scan.
+ * A page also stays a candidate when its fonts may come from somewhere the
+ * scan cannot read: scripts that load or set fonts (WebFont loader, Typekit,
+ * FontFace, inline fontFamily) and font values taken from a custom property
+ * whose name does not mention "font" (font-family: var(--brand)).
+ */
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.FileOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+public class FontPrescan {
+
+    static final int CONCURRENCY = Integer.getInteger("prescan.concurrency", 8);
+
+    private static final Pattern LINK_TAG      = Pattern.compile("<link\\b[^>]*>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern STYLESHEET    = Pattern.compile("rel\\s*=\\s*[\"']?[^\"'>]*stylesheet", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PRELOAD       = Pattern.compile("rel\\s*=\\s*[\"']?[^\"'>]*preload", Pattern.CASE_INSENSITIVE);
+    private static final Pattern AS_STYLE      = Pattern.compile("\\bas\\s*=\\s*[\"']?style\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern HREF          = Pattern.compile("href\\s*=\\s*[\"']([^\"']+)[\"']", Pattern.CASE_INSENSITIVE);
+    private static final Pattern STYLE_BLOCK   = Pattern.compile("<style\\b[^>]*>(.*?)</style>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern STYLE_ATTR    = Pattern.compile(
+            "style\\s*=\\s*(?:\"([^\"]*font[^\"]*)\"|'([^']*font[^']*)')", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SCRIPT        = Pattern.compile("<script\\b([^>]*)>(.*?)</script>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    // Script sources and inline code that load fonts or set them at runtime
+    private static final Pattern FONT_SCRIPT_SRC  = Pattern.compile("src\\s*=\\s*[\"'][^\"']*(webfont|typekit|fonts\\.net)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern FONT_SCRIPT_CODE = Pattern.compile(
+            "WebFont\\.load|WebFontConfig|new\\s+FontFace|document\\.fonts\\.add|fontFamily|font-family", Pattern.CASE_INSENSITIVE);
+    private static final Pattern VAR_REF       = Pattern.compile("var\\(\\s*(--[\\w-]+)");
+    private static final Pattern COMMENT       = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern FONT_FACE     = Pattern.compile("@font-face\\s*\\{([^}]*)\\}", Pattern.CASE_INSENSITIVE);
+    private static final Pattern IMPORT        = Pattern.compile("@import\\s+(?:url\\()?\\s*[\"']?([^\"')\\s;]+)", Pattern.CASE_INSENSITIVE);
+    // font-family: …, --heading-font: …, and the family list at the end of the font: shorthand
+    private static final Pattern FAMILY_DECL   = Pattern.compile("(?:^|[;{\\s])(font-family|--[\\w-]*font[\\w-]*)\\s*:\\s*([^;}]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern FONT_SHORTHAND = Pattern.compile(
+            "(?:^|[;{\\s])font\\s*:\\s*[^;}]*?\\d[\\w.%]*(?:\\s*/\\s*[\\w.%]+)?\\s+([^;}]+)", Pattern.CASE_INSENSITIVE);
+
+    /** Fonts found in one stylesheet (or inline CSS). */
+    static class SheetFonts {
+        final String hash;
+        final Set<String> fontFaces = new TreeSet<>();
+        final Set<String> families = new TreeSet<>();
+        final List<String> imports = new ArrayList<>();
+        final Set<String> opaqueVars = new TreeSet<>();   // var(--x) in font values, --x not captured as a font property
+
+        SheetFonts(String hash) {
+            this.hash = hash;
+        }
+    }
+
+    /** Pre‑scan verdict for one page. */
+    static class PageResult {
+        final String url;
+        final List<String> stylesheets = new ArrayList<>();
+        final Set<String> forbiddenHits = new TreeSet<>();
+        final Set<String> unverifiable = new TreeSet<>();   // font sources the scan cannot read
+        String error;
+
+        PageResult(String url) {
+            this.url = url;
+        }
+    }
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    // Download cache: one fetch per stylesheet URL, shared by every page that links it
+    private final ConcurrentHashMap<String, CompletableFuture<SheetFonts>> byUrl = new ConcurrentHashMap<>();
+    // Parse cache: identical CSS served under different URLs is parsed once
+    private final ConcurrentHashMap<String, SheetFonts> byHash = new ConcurrentHashMap<>();
+    private final Set<String> forbidden;
+    private final boolean everyPage;
+
+    /**
+     * @param everyPage Mark every page as a candidate, e.g. when the policy
+     *                  has allowed lists the pre‑scan cannot evaluate.
+     */
+    FontPrescan(Set<String> forbidden, boolean everyPage) {
+        this.forbidden = forbidden;
+        this.everyPage = everyPage;
+    }
+
+    public static void main(String[] args) throws Exception {
+        FontPolicy policy = FontVerification.loadPolicy();
+        FontPrescan prescan = new FontPrescan(policy.forbiddenFamilies(), policy.hasAllowedLists());
+        System.out.println("🔎 Forbidden families: " + prescan.forbidden);
+        if (prescan.everyPage) {
+            System.out.println("⚠️ Policy has allowed lists – every page stays a browser‑audit candidate");
+        }
+
+        List<String> pageUrls = new ArrayList<>();
+        for (String sitemap : args.length > 0 ? args : FontVerification.SITEMAP_URLS) {
+            pageUrls.addAll(FontVerification.getUrlsFromSitemap(sitemap));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(CONCURRENCY);
+        List<Future<PageResult>> futures = new ArrayList<>();
+        for (String pageUrl : pageUrls) {
+            futures.add(pool.submit(() -> prescan.scanPage(pageUrl)));
+        }
+        List<PageResult> results = new ArrayList<>();
+        for (Future<PageResult> future : futures) {
+            results.add(future.get());
+        }
+        pool.shutdown();
+
+        List<String> candidates = results.stream()
+                .filter(prescan::isCandidate)
+                .map(r -> r.url)
+                .collect(Collectors.toList());
+        Files.write(Paths.get(System.getProperty("user.dir"), "font-prescan-candidates.txt"), candidates, StandardCharsets.UTF_8);
+        prescan.saveReport(results, System.getProperty("user.dir") + "/FontPrescanReport.xlsx");
+        System.out.println("✅ Pre‑scan complete: " + candidates.size() + " of " + results.size()
+                + " pages need a browser audit (" + prescan.byUrl.size() + " stylesheets fetched, "
+                + prescan.byHash.size() + " parsed)");
+    }
+
+    /* ─────────────────────── Scanning ─────────────────────── */
+
+    PageResult scanPage(String pageUrl) {
+        PageResult result = new PageResult(pageUrl);
+        try {
+            String html = fetch(pageUrl);
+            List<SheetFonts> sheets = new ArrayList<>();
+
+            Matcher link = LINK_TAG.matcher(html);
+            while (link.find()) {
+                Matcher href = HREF.matcher(link.group());
+                boolean styles = STYLESHEET.matcher(link.group()).find()
+                        || PRELOAD.matcher(link.group()).find() && AS_STYLE.matcher(link.group()).find();
+                if (styles && href.find()) {
+                    String cssUrl = URI.create(pageUrl).resolve(href.group(1).replace("&amp;", "&").trim()).toString();
+                    result.stylesheets.add(cssUrl);
+                    sheets.addAll(stylesheet(cssUrl, new HashSet<>()));
+                }
+            }
+            Matcher block = STYLE_BLOCK.matcher(html);
+            while (block.find()) {
+                sheets.add(parse(block.group(1)));
+            }
+            Matcher attr = STYLE_ATTR.matcher(html);
+            while (attr.find()) {
+                sheets.add(parse("{" + (attr.group(1) != null ? attr.group(1) : attr.group(2)) + "}"));
+            }
+            Matcher script = SCRIPT.matcher(html);
+            while (script.find()) {
+                if (FONT_SCRIPT_SRC.matcher(script.group(1)).find()) {
+                    result.unverifiable.add("font loader script");
+                } else if (FONT_SCRIPT_CODE.matcher(script.group(2)).find()) {
+                    result.unverifiable.add("inline script sets fonts");
+                }
+            }
+
+            for (SheetFonts sheet : sheets) {
+                result.forbiddenHits.addAll(forbiddenIn(sheet));
+                for (String var : sheet.opaqueVars) {
+                    result.unverifiable.add("font via var(" + var + ")");
+                }
+            }
+            boolean clean = result.forbiddenHits.isEmpty() && result.unverifiable.isEmpty();
+            System.out.println((clean ? "✅ " : "⚠️ ") + pageUrl
+                    + (result.forbiddenHits.isEmpty() ? "" : " → " + result.forbiddenHits)
+                    + (result.unverifiable.isEmpty() ? "" : " (unverifiable: " + result.unverifiable + ")"));
+        } catch (Exception e) {
+            // Unknown is not safe – leave the page to the browser audit
+            result.error = e.getMessage();
+            System.out.println("❌ Pre‑scan failed: " + pageUrl + " - " + e.getMessage());
+        }
+        return result;
+    }
+
+    /** A stylesheet plus everything it @imports, each downloaded at most once. */
+    private List<SheetFonts> stylesheet(String cssUrl, Set<String> visiting) throws Exception {
+        List<SheetFonts> sheets = new ArrayList<>();
+        if (!visiting.add(cssUrl)) {
+            return sheets;   // @import cycle
+        }
+        // First page to need the stylesheet downloads it; concurrent pages wait on the same future
+        CompletableFuture<SheetFonts> download = new CompletableFuture<>();
+        CompletableFuture<SheetFonts> existing = byUrl.putIfAbsent(cssUrl, download);
+        if (existing == null) {
+            try {
+                download.complete(parse(fetch(cssUrl)));
+            } catch (Exception e) {
+                download.completeExceptionally(e);
+            }
+            existing = download;
+        }
+        SheetFonts sheet = existing.get();
+        sheets.add(sheet);
+        for (String imported : sheet.imports) {
+            sheets.addAll(stylesheet(URI.create(cssUrl).resolve(imported).toString(), visiting));
+        }
+        return sheets;
+    }
+
+    /** Extracts font information from CSS text, reusing an earlier parse of identical content. */
+    SheetFonts parse(String css) {
+        String hash = ScreenshotStore.hash(css.getBytes(StandardCharsets.UTF_8));
+        return byHash.computeIfAbsent(hash, h -> {
+            SheetFonts fonts = new SheetFonts(h);
+            String clean = COMMENT.matcher(css).replaceAll("");
+
+            Matcher face = FONT_FACE.matcher(clean);
+            while (face.find()) {
+                Matcher family = FAMILY_DECL.matcher(face.group(1));
+                if (family.find()) {
+                    fonts.fontFaces.addAll(splitFamilies(family.group(2)));
+                }
+            }
+            Matcher decl = FAMILY_DECL.matcher(clean);
+            while (decl.find()) {
+                fonts.families.addAll(splitFamilies(decl.group(2)));
+                opaqueVars(decl.group(2), fonts.opaqueVars);
+            }
+            Matcher shorthand = FONT_SHORTHAND.matcher(clean);
+            while (shorthand.find()) {
+                fonts.families.addAll(splitFamilies(shorthand.group(1)));
+                opaqueVars(shorthand.group(1), fonts.opaqueVars);
+            }
+            Matcher imports = IMPORT.matcher(clean);
+            while (imports.find()) {
+                fonts.imports.add(imports.group(1));
+            }
+            return fonts;
+        });
+    }
+
+    /** Whether the browser audit still has to render the page. */
+    boolean isCandidate(PageResult result) {
+        return everyPage || !result.forbiddenHits.isEmpty() || !result.unverifiable.isEmpty() || result.error != null;
+    }
+
+    // Custom properties a font value reads whose own declaration FAMILY_DECL does not capture
+    private static void opaqueVars(String value, Set<String> into) {
+        Matcher ref = VAR_REF.matcher(value);
+        while (ref.find()) {
+            if (!ref.group(1).toLowerCase().contains("font")) {
+                into.add(ref.group(1));
+            }
+        }
+    }
+
+    private Set<String> forbiddenIn(SheetFonts sheet) {
+        Set<String> hits = new TreeSet<>();
+        for (String family : forbidden) {
+            if (sheet.families.contains(family) || sheet.fontFaces.contains(family)) {
+                hits.add(family);
+            }
+        }
+        return hits;
+    }
+
+    private static List<String> splitFamilies(String value) {
+        List<String> families = new ArrayList<>();
+        for (String family : value.replaceAll("!important", "").split(",")) {
+            String normalized = FontPolicy.normalize(family);
+            if (!normalized.isEmpty() && !normalized.startsWith("var(")) {
+                families.add(normalized);
+            }
+        }
+        return families;
+    }
+
+    private String fetch(String url) throws Exception {
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(20)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + " for " + url);
+        }
+        return response.body();
+    }
+
+    /* ─────────────────────── Report ─────────────────────── */
+
+    void saveReport(List<PageResult> results, String fileName) {
+        try (Workbook workbook = new XSSFWorkbook();
+             FileOutputStream out = new FileOutputStream(fileName)) {
+            CellStyle flagged = workbook.createCellStyle();
+            flagged.setFillForegroundColor(IndexedColors.YELLOW.getIndex());
+            flagged.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+            Sheet pages = workbook.createSheet("Pages");
+            String[] pageHeaders = {"Page URL", "Stylesheets", "Forbidden Families", "Unverifiable Sources",
+                    "Needs Browser Audit"};
+            Row header = pages.createRow(0);
+            for (int i = 0; i < pageHeaders.length; i++) {
+                header.createCell(i).setCellValue(pageHeaders[i]);
+            }
+            int rowNum = 1;
+            for (PageResult result : results) {
+                boolean candidate = isCandidate(result);
+                Row row = pages.createRow(rowNum++);
+                row.createCell(0).setCellValue(result.url);
+                row.createCell(1).setCellValue(result.stylesheets.size());
+                row.createCell(2).setCellValue(result.error != null
+                        ? "scan failed: " + result.error : String.join(", ", result.forbiddenHits));
+                row.createCell(3).setCellValue(String.join(", ", result.unverifiable));
+                row.createCell(4).setCellValue(candidate ? "YES" : "no");
+                if (candidate) {
+                    row.getCell(4).setCellStyle(flagged);
+                }
+            }
+
+            Sheet sheets = workbook.createSheet("Stylesheets");
+            String[] sheetHeaders = {"Stylesheet URL", "Content Hash", "@font-face Families", "Used Families", "Forbidden"};
+            header = sheets.createRow(0);
+            for (int i = 0; i < sheetHeaders.length; i++) {
+                header.createCell(i).setCellValue(sheetHeaders[i]);
+            }
+            rowNum = 1;
+            for (Map.Entry<String, CompletableFuture<SheetFonts>> entry : new TreeMap<>(byUrl).entrySet()) {
+                Row row = sheets.createRow(rowNum++);
+                row.createCell(0).setCellValue(entry.getKey());
+                if (entry.getValue().isCompletedExceptionally()) {
+                    row.createCell(1).setCellValue("download failed");
+                    continue;
+                }
+                SheetFonts fonts = entry.getValue().join();
+                Set<String> hits = forbiddenIn(fonts);
+                row.createCell(1).setCellValue(fonts.hash.substring(0, 12));
+                row.createCell(2).setCellValue(String.join(", ", fonts.fontFaces));
+                row.createCell(3).setCellValue(String.join(", ", fonts.families));
+                row.createCell(4).setCellValue(String.join(", ", hits));
+                if (!hits.isEmpty()) {
+                    row.getCell(4).setCellStyle(flagged);
+                }
+            }
+            workbook.write(out);
+            System.out.println("✅ Pre‑scan report saved at: " + fileName);
+        } catch (Exception e) {
+            System.out.println("❌ Error saving pre‑scan report: " + e.getMessage());
+        }
+    }
+}
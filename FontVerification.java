@@ -1,24 +1,93 @@
 import org.openqa.selenium.*;
 import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.w3c.dom.*;
 import javax.xml.parsers.*;
 import java.io.*;
 import java.net.*;
+import java.nio.file.Files;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 
 public class FontVerification {
-    // Old font stack (normalized for comparison)
-    private static final String OLD_FONT = "neue montreal, sans-serif";
+    // Old font family (normalized for comparison) – used when no policy file is given.
+    // Broader than the original check, which only matched the literal stack
+    // "neue montreal, sans-serif": the family is now flagged anywhere in the stack,
+    // so stacks such as "neue montreal, arial" are reported too.
+    private static final String OLD_FONT = "neue montreal";
+
+    // All staging sitemap URLs
+    static final String[] SITEMAP_URLS = {
+//            "https://theorangebyte.addwebprojects.com/post-sitemap.xml",
+//            "https://theorangebyte.addwebprojects.com/page-sitemap.xml",
+//            "https://theorangebyte.addwebprojects.com/services-sitemap.xml",
+//            "https://theorangebyte.addwebprojects.com/success-stories-sitemap.xml",
+//            "https://theorangebyte.addwebprojects.com/post_tag-sitemap.xml",
+//            "https://theorangebyte.addwebprojects.com/technologies-sitemap.xml",
+//            "https://theorangebyte.addwebprojects.com/industries-sitemap.xml",
+//            "https://theorangebyte.addwebprojects.com/success_tag-sitemap.xml"
+
+            "https://theorangebyte.com/post-sitemap.xml",
+            "https://theorangebyte.com/page-sitemap.xml",
+            "https://theorangebyte.com/services-sitemap.xml",
+            "https://theorangebyte.com/success-stories-sitemap.xml",
+            "https://theorangebyte.com/success_tag-sitemap.xml"
+    };
+
+    // Tags inspected by the default policy
+    private static final String DEFAULT_SELECTOR = "h1,h2,h3,h4,h5,h6,p,span,a,li,td,th,button,label";
+
+    // Generic families never match a rendered platform font name, so skip those in the fallback check
+    private static final Set<String> GENERIC_FAMILIES = new HashSet<>(Arrays.asList(
+            "serif", "sans-serif", "monospace", "cursive", "fantasy", "system-ui",
+            "-apple-system", "blinkmacsystemfont", "ui-sans-serif", "ui-serif", "ui-monospace"));
+
+    /*
+     * Runs the whole policy inside the page and returns only what Java needs:
+     *   [0] number of elements checked
+     *   [1] violations: [tag, identifier, snippet, font-family, rule selector, reason]
+     *   [2] probes: one element per (rule, font stack) that passed, tagged with
+     *       data-font-probe so its rendered font can be confirmed over CDP:
+     *       [probe id, rule index, tag, identifier, snippet, font-family]
+     */
+    private static final String POLICY_SCRIPT =
+            "var rules = arguments[0], checked = 0, violations = [], probes = [], seen = {};" +
+            "function norm(s) { return s.toLowerCase().replace(/[\"']/g, '').replace(/\\s+/g, ' ').trim(); }" +
+            "function ident(el) {" +
+            "  if (el.id) return '#' + el.id;" +
+            "  var cls = el.getAttribute('class');" +
+            "  return cls ? '.' + cls : '[no-id/class]';" +
+            "}" +
+            "function snippet(t) { return t.length > 50 ? t.substring(0, 47) + '\u2026' : t; }" +
+            "rules.forEach(function (rule, r) {" +
+            "  document.querySelectorAll(rule.selector).forEach(function (el) {" +
+            "    var text = el.textContent.trim();" +
+            "    if (!text || el.getClientRects().length === 0) return;" +
+            "    checked++;" +
+            "    var font = norm(getComputedStyle(el).fontFamily);" +
+            "    var families = font.split(',').map(function (f) { return f.trim(); });" +
+            "    var reason = null;" +
+            "    families.forEach(function (f) { if (!reason && rule.forbidden.indexOf(f) >= 0) reason = 'forbidden family: ' + f; });" +
+            "    if (!reason && rule.allowed.length && rule.allowed.indexOf(families[0]) < 0) reason = 'primary family not allowed: ' + families[0];" +
+            "    var tag = el.tagName.toLowerCase();" +
+            "    if (reason) { violations.push([tag, ident(el), snippet(text), font, rule.selector, reason]); return; }" +
+            "    var key = r + '|' + font;" +
+            "    if (!seen[key]) {" +
+            "      seen[key] = true;" +
+            "      el.setAttribute('data-font-probe', probes.length);" +
+            "      probes.push([probes.length, r, tag, ident(el), snippet(text), font]);" +
+            "    }" +
+            "  });" +
+            "});" +
+            "return [checked, violations, probes];";
 
     public static void main(String[] args) throws Exception {
-        // 1. Setup ChromeDriver
+        // 1. Setup ChromeDriver and the font policy
         System.setProperty("Webdriver.chrome.driver", System.getProperty("user.dir") + "/chromedriver");
 
-        WebDriver driver = new ChromeDriver();
-        driver.manage().timeouts().implicitlyWait(10, TimeUnit.SECONDS);
+        FontPolicy policy = loadPolicy();
+        boolean checkRendered = Boolean.getBoolean("font.rendered");
 
         // 2. Prepare Excel workbook for failures
         XSSFWorkbook workbook = new XSSFWorkbook();
@@ -28,106 +97,191 @@ public class FontVerification {
                 "Tag",
                 "Identifier",
                 "Text Snippet",
-                "Font Family"
+                "Font Family",
+                "Rule",
+                "Reason"
         };
         Row headerRow = sheet.createRow(0);
         for (int i = 0; i < headers.length; i++) {
             headerRow.createCell(i).setCellValue(headers[i]);
         }
-        int excelRow = 1;
-
-        // 3. All staging sitemap URLs
-        String[] sitemapUrls = {
-//                "https://theorangebyte.addwebprojects.com/post-sitemap.xml",
-//                "https://theorangebyte.addwebprojects.com/page-sitemap.xml",
-//                "https://theorangebyte.addwebprojects.com/services-sitemap.xml",
-//                "https://theorangebyte.addwebprojects.com/success-stories-sitemap.xml",
-//                "https://theorangebyte.addwebprojects.com/post_tag-sitemap.xml",
-//                "https://theorangebyte.addwebprojects.com/technologies-sitemap.xml",
-//                "https://theorangebyte.addwebprojects.com/industries-sitemap.xml",
-//                "https://theorangebyte.addwebprojects.com/success_tag-sitemap.xml"
-
-                "https://theorangebyte.com/post-sitemap.xml",
-                "https://theorangebyte.com/page-sitemap.xml",
-                "https://theorangebyte.com/services-sitemap.xml",
-                "https://theorangebyte.com/success-stories-sitemap.xml",
-                "https://theorangebyte.com/success_tag-sitemap.xml"
-        };
 
-        // 4. Aggregate all page URLs
-        List<String> allPageUrls = new ArrayList<>();
-        for (String sitemap : sitemapUrls) {
-            allPageUrls.addAll(getUrlsFromSitemap(sitemap));
+        // 3. Pages to audit – the pre-scan candidate list if given, otherwise every URL of the
+        //    sitemaps passed as arguments (or SITEMAP_URLS)
+        Map<String, List<String>> pagesBySource = new LinkedHashMap<>();
+        String pageList = System.getProperty("font.pages");
+        if (pageList != null) {
+            List<String> listed = new ArrayList<>();
+            for (String line : Files.readAllLines(new File(pageList).toPath())) {
+                if (!line.trim().isEmpty()) {
+                    listed.add(line.trim());
+                }
+            }
+            pagesBySource.put(pageList, listed);
+            System.out.println("📋 Auditing " + listed.size() + " pre-scanned pages from " + pageList);
+        } else {
+            for (String sitemap : args.length > 0 ? args : SITEMAP_URLS) {
+                pagesBySource.put(sitemap, getUrlsFromSitemap(sitemap));
+            }
         }
+        List<String> allPageUrls = new ArrayList<>();
+        pagesBySource.values().forEach(allPageUrls::addAll);
 
-        // 5. Tags to inspect
-        String[] tagsToCheck = {
-                "h1", "h2", "h3", "h4", "h5", "h6",
-                "p", "span", "a", "li", "td", "th",
-                "button", "label"
-        };
+        // -Dsample=true: a few pages per template first, the whole template only if one of them fails
+        TemplateSampler sampler = TemplateSampler.ENABLED ? new TemplateSampler(pagesBySource) : null;
+        List<String> toAudit = sampler == null ? allPageUrls : sampler.initialSample();
 
-        // 6. Iterate pages and verify fonts
-        for (String url : allPageUrls) {
-            driver.get(url);
-            System.out.println("▶️ Testing page: " + url);
-
-            for (String tag : tagsToCheck) {
-                List<WebElement> elements = driver.findElements(By.tagName(tag));
-                for (WebElement elem : elements) {
-                    String text = elem.getText().trim();
-                    if (text.isEmpty()) {
-                        continue;
+        // 4. Iterate pages and verify fonts – each page has a deadline, slow ones are retried/hedged
+        PageCrawler<List<String[]>> crawler = new PageCrawler<>(Integer.getInteger("font.workers", 1),
+                () -> new ChromeDriver(PageCrawler.configure(new ChromeOptions())),
+                (driver, url) -> findFontViolations(driver, policy, checkRendered));
+        List<PageCrawler.Outcome<List<String[]>>> outcomes = new ArrayList<>();
+        while (!toAudit.isEmpty()) {
+            outcomes.addAll(crawler.crawl(toAudit, outcome -> {
+                System.out.println("▶️ Testing page: " + outcome.url);
+                if (outcome.status != PageCrawler.Status.OK || !outcome.result.isEmpty()) {
+                    if (sampler != null) {
+                        sampler.markFailed(outcome.url);
                     }
+                }
+                if (outcome.status != PageCrawler.Status.OK) {
+                    return;
+                }
+                for (String[] failure : outcome.result) {
+                    System.out.println("❌ FONT POLICY: <" + failure[0] + "> \""
+                            + (failure[2].length() > 30 ? failure[2].substring(0, 27) + "…" : failure[2])
+                            + "\" " + failure[5]);
 
-                    // Normalize computed font-family
-                    String fontFamily = elem.getCssValue("font-family")
-                            .toLowerCase()
-                            .replaceAll("\"", "")
-                            .replaceAll("\\s+", " ");
-
-                    // If current font uses the OLD font, it is a failure
-                    if (fontFamily.contains(OLD_FONT)) {
-                        System.out.println("❌ OLD FONT FOUND: <" + tag + "> \""
-                                + (text.length() > 30 ? text.substring(0, 27) + "…" : text)
-                                + "\" font=" + fontFamily);
-
-                        // Safe identifier fallback logic
-                        String id = elem.getAttribute("id");
-                        String cls = elem.getAttribute("class");
-                        String identifier = (id != null && !id.isEmpty())
-                                ? "#" + id
-                                : (cls != null && !cls.isEmpty())
-                                ? "." + cls
-                                : "[no-id/class]";
-
-                        // Write failure to Excel
-                        Row row = sheet.createRow(excelRow++);
-                        row.createCell(0).setCellValue(url);
-                        row.createCell(1).setCellValue(tag);
-                        row.createCell(2).setCellValue(identifier);
-                        row.createCell(3).setCellValue(text.length() > 50
-                                ? text.substring(0, 47) + "…" : text);
-                        row.createCell(4).setCellValue(fontFamily);
-                    } else {
-                        System.out.println("✔️ NO OLD FONT: <" + tag + "> \""
-                                + (text.length() > 30 ? text.substring(0, 27) + "…" : text)
-                                + "\"");
+                    // Write failure to Excel
+                    Row row = sheet.createRow(sheet.getLastRowNum() + 1);
+                    row.createCell(0).setCellValue(outcome.url);
+                    for (int i = 0; i < failure.length; i++) {
+                        row.createCell(i + 1).setCellValue(failure[i]);
                     }
                 }
-            }
+                if (outcome.result.isEmpty()) {
+                    System.out.println("✔️ No font policy violations");
+                }
+            }));
+            toAudit = sampler == null ? Collections.emptyList() : sampler.widen();
         }
 
-        // 7. Tear down and save
-        driver.quit();
+        // 5. Tear down and save – pages that never loaded get their own sheet
+        crawler.close();
+        PageCrawler.writeLoadSheet(workbook, outcomes);
+        if (sampler != null) {
+            sampler.writeCoverageSheet(workbook);
+        }
         try (FileOutputStream out =
-                     new FileOutputStream("FontVerificationFailures.xlsx")) {
+                     new FileOutputStream(System.getProperty("user.dir") + "/FontVerificationFailures.xlsx")) {
             workbook.write(out);
         }
         workbook.close();
         System.out.println("✅ Verification complete. Failures saved to FontVerificationFailures.xlsx");
     }
 
+    /** Policy from -Dfont.policy, or the default rule forbidding OLD_FONT. */
+    static FontPolicy loadPolicy() throws IOException {
+        String policyFile = System.getProperty("font.policy");
+        return policyFile != null
+                ? FontPolicy.load(new File(policyFile))
+                : FontPolicy.forbid(DEFAULT_SELECTOR, OLD_FONT);
+    }
+
+    /**
+     * Evaluates the policy on the loaded page in a single script call and,
+     * optionally, confirms the font Chrome actually rendered via
+     * CSS.getPlatformFontsForNode – catching fallbacks after a failed webfont load.
+     *
+     * @return Violations as [tag, identifier, snippet, font-family, rule, reason].
+     */
+    @SuppressWarnings("unchecked")
+    public static List<String[]> findFontViolations(ChromeDriver driver, FontPolicy policy, boolean checkRendered) {
+        List<Object> result = (List<Object>) driver.executeScript(POLICY_SCRIPT, policy.toScriptArgument());
+        List<String[]> violations = new ArrayList<>();
+        for (Object row : (List<Object>) result.get(1)) {
+            violations.add(toStrings((List<Object>) row));
+        }
+        List<Object> probes = (List<Object>) result.get(2);
+        if (checkRendered && !probes.isEmpty()) {
+            // One document snapshot per page; every probe is looked up under its root
+            Map<String, Object> params = new HashMap<>();
+            driver.executeCdpCommand("DOM.enable", params);
+            driver.executeCdpCommand("CSS.enable", params);
+            params.put("depth", 0);
+            Object rootId = ((Map<String, Object>) driver.executeCdpCommand("DOM.getDocument", params)
+                    .get("root")).get("nodeId");
+            for (Object row : probes) {
+                String[] violation = checkRenderedFont(driver, policy, rootId, (List<Object>) row);
+                if (violation != null) {
+                    violations.add(violation);
+                }
+            }
+        }
+        System.out.println("   checked " + result.get(0) + " elements, " + violations.size() + " violations");
+        return violations;
+    }
+
+    // Compares the font with the most glyphs on the probe element with its declared stack
+    @SuppressWarnings("unchecked")
+    private static String[] checkRenderedFont(ChromeDriver driver, FontPolicy policy, Object rootId, List<Object> probe) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("nodeId", rootId);
+        params.put("selector", "[data-font-probe=\"" + probe.get(0) + "\"]");
+        Object nodeId = driver.executeCdpCommand("DOM.querySelector", params).get("nodeId");
+        if (nodeId == null || ((Number) nodeId).intValue() == 0) {
+            return null;
+        }
+
+        params = new HashMap<>();
+        params.put("nodeId", nodeId);
+        List<Map<String, Object>> fonts = (List<Map<String, Object>>)
+                driver.executeCdpCommand("CSS.getPlatformFontsForNode", params).get("fonts");
+        String rendered = null;
+        long mostGlyphs = -1;
+        for (Map<String, Object> font : fonts) {
+            long glyphs = ((Number) font.get("glyphCount")).longValue();
+            if (glyphs > mostGlyphs) {
+                mostGlyphs = glyphs;
+                rendered = FontPolicy.normalize((String) font.get("familyName"));
+            }
+        }
+        if (rendered == null) {
+            return null;
+        }
+
+        FontPolicy.Rule rule = policy.rules.get(((Number) probe.get(1)).intValue());
+        String declared = (String) probe.get(5);
+        String primary = declared.split(",")[0].trim();
+        String reason = null;
+        for (String forbidden : rule.forbidden) {
+            if (sameFamily(rendered, forbidden)) {
+                reason = "rendered forbidden family: " + rendered;
+            }
+        }
+        if (reason == null && !GENERIC_FAMILIES.contains(primary) && !sameFamily(rendered, primary)) {
+            reason = "fallback rendered: " + rendered + " instead of " + primary;
+        }
+        if (reason == null) {
+            return null;
+        }
+        return new String[]{(String) probe.get(2), (String) probe.get(3), (String) probe.get(4),
+                declared, rule.selector, reason};
+    }
+
+    // Platform names often carry a suffix ("Inter Variable", "Neue Montreal Regular")
+    private static boolean sameFamily(String rendered, String declared) {
+        return rendered.startsWith(declared) || declared.startsWith(rendered);
+    }
+
+    private static String[] toStrings(List<Object> values) {
+        String[] strings = new String[values.size()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = String.valueOf(values.get(i));
+        }
+        return strings;
+    }
+
     // Parses a sitemap XML and returns all <loc> URLs
     public static List<String> getUrlsFromSitemap(String sitemapUrl)
             throws Exception {
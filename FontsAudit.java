@@ -24,10 +24,9 @@ public class FontsAudit {
         for (int i = 0; i < headers.length; i++) {
             headerRow.createCell(i).setCellValue(headers[i]);
         }
-        int excelRow = 1;
 
-        // Sitemap URLs — same as before or modify your list here
-        String[] sitemapUrls = {
+        // Sitemap URLs — same as before or modify your list here (arguments take precedence)
+        String[] sitemapUrls = args.length > 0 ? args : new String[]{
 //                "https://theorangebyte.addwebprojects.com/post-sitemap.xml",
 //                "https://theorangebyte.addwebprojects.com/page-sitemap.xml",
                 "https://theorangebyte.addwebprojects.com/services-sitemap.xml"
@@ -38,63 +37,91 @@ public class FontsAudit {
 //                "https://theorangebyte.addwebprojects.com/success_tag-sitemap.xml"
         };
 
-        List<String> allPageUrls = new ArrayList<>();
+        Map<String, List<String>> pagesBySitemap = new LinkedHashMap<>();
         for (String sitemap : sitemapUrls) {
-            allPageUrls.addAll(getUrlsFromSitemap(sitemap));
+            pagesBySitemap.put(sitemap, getUrlsFromSitemap(sitemap));
         }
+        List<String> allPageUrls = new ArrayList<>();
+        pagesBySitemap.values().forEach(allPageUrls::addAll);
 
-        // Tags to check - headings + common text tags
-        String[] tagsToCheck = {
-                "h1","h2","h3","h4","h5","h6",
-                "p","span","a","li","td","th",
-                "button","label"
-        };
+        // -Dsample=true: audit a few pages per template; a template whose samples use
+        // different fonts is not uniform after all, so the rest of it is audited too
+        TemplateSampler sampler = TemplateSampler.ENABLED ? new TemplateSampler(pagesBySitemap) : null;
+        Map<String, Set<String>> fontsByCluster = new HashMap<>();
+        List<String> toAudit = sampler == null ? allPageUrls : sampler.initialSample();
 
-        for (String url : allPageUrls) {
-            driver.get(url);
-            System.out.println("⏳ Auditing fonts on: " + url);
+        while (!toAudit.isEmpty()) {
+            for (String url : toAudit) {
+                driver.get(url);
+                System.out.println("⏳ Auditing fonts on: " + url);
+                Set<String> fonts = auditPage(driver, url, sheet);
 
-            for (String tag : tagsToCheck) {
-                List<WebElement> elements = driver.findElements(By.tagName(tag));
-                for (WebElement elem : elements) {
-                    String text = elem.getText().trim();
-                    if (text.isEmpty()) {
-                        continue;
+                if (sampler != null) {
+                    Set<String> first = fontsByCluster.putIfAbsent(sampler.clusterKey(url), fonts);
+                    if (first != null && !first.equals(fonts)) {
+                        sampler.markFailed(url);
                     }
-
-                    // Get computed font-family, normalize
-                    String fontFamily = elem.getCssValue("font-family")
-                            .toLowerCase()
-                            .replaceAll("\"", "")
-                            .replaceAll("\\s+", " ");
-
-                    // Get element identifier
-                    String id = elem.getAttribute("id");
-                    String cls = elem.getAttribute("class");
-                    String identifier = (id != null && !id.isEmpty()) ? "#" + id
-                            : (cls != null && !cls.isEmpty()) ? "." + cls
-                            : "[no-id/class]";
-
-                    // Write row to Excel
-                    Row row = sheet.createRow(excelRow++);
-                    row.createCell(0).setCellValue(url);
-                    row.createCell(1).setCellValue(tag);
-                    row.createCell(2).setCellValue(identifier);
-                    row.createCell(3).setCellValue(text.length() > 50 ? text.substring(0, 47) + "…" : text);
-                    row.createCell(4).setCellValue(fontFamily);
                 }
             }
+            toAudit = sampler == null ? Collections.emptyList() : sampler.widen();
         }
 
         driver.quit();
 
-        try (FileOutputStream out = new FileOutputStream("FontsAuditReport.xlsx")) {
+        if (sampler != null) {
+            sampler.writeCoverageSheet(workbook);
+        }
+        try (FileOutputStream out = new FileOutputStream(System.getProperty("user.dir") + "/FontsAuditReport.xlsx")) {
             workbook.write(out);
         }
         workbook.close();
         System.out.println("✅ Fonts audit complete. Report saved as FontsAuditReport.xlsx");
     }
 
+    // Writes one row per text element and returns the distinct font families seen on the page
+    static Set<String> auditPage(WebDriver driver, String url, Sheet sheet) {
+        // Tags to check - headings + common text tags
+        String[] tagsToCheck = {
+                "h1","h2","h3","h4","h5","h6",
+                "p","span","a","li","td","th",
+                "button","label"
+        };
+        Set<String> fonts = new TreeSet<>();
+
+        for (String tag : tagsToCheck) {
+            List<WebElement> elements = driver.findElements(By.tagName(tag));
+            for (WebElement elem : elements) {
+                String text = elem.getText().trim();
+                if (text.isEmpty()) {
+                    continue;
+                }
+
+                // Get computed font-family, normalize
+                String fontFamily = elem.getCssValue("font-family")
+                        .toLowerCase()
+                        .replaceAll("\"", "")
+                        .replaceAll("\\s+", " ");
+                fonts.add(fontFamily);
+
+                // Get element identifier
+                String id = elem.getAttribute("id");
+                String cls = elem.getAttribute("class");
+                String identifier = (id != null && !id.isEmpty()) ? "#" + id
+                        : (cls != null && !cls.isEmpty()) ? "." + cls
+                        : "[no-id/class]";
+
+                // Write row to Excel
+                Row row = sheet.createRow(sheet.getLastRowNum() + 1);
+                row.createCell(0).setCellValue(url);
+                row.createCell(1).setCellValue(tag);
+                row.createCell(2).setCellValue(identifier);
+                row.createCell(3).setCellValue(text.length() > 50 ? text.substring(0, 47) + "…" : text);
+                row.createCell(4).setCellValue(fontFamily);
+            }
+        }
+        return fonts;
+    }
+
     // Parses sitemap XML to get URLs
     public static List<String> getUrlsFromSitemap(String sitemapUrl) throws Exception {
         List<String> urls = new ArrayList<>();
@@ -0,0 +1,355 @@
+/**
+ * HtmlReport.java
+ *
+ * Streaming HTML report that stays usable at hundreds of thousands of rows.
+ *
+ * Output for Report.html
+ *   • Report.html                  – small static viewer, no external dependencies
+ *   • Report_data/manifest.js      – columns, row / chunk counts, per‑group totals
+ *   • Report_data/chunk‑00000.js … – html.chunkRows rows each, as gzip + base64 JSON
+ *
+ * Rows are streamed straight into the current chunk file (JSON → gzip →
+ * base64), so writing never holds more than one row in memory. Chunks are
+ * .js files loaded with <script> tags, which works from file:// where
+ * fetch() does not; the browser inflates them with DecompressionStream.
+ *
+ * Viewer
+ *   • Virtualised table – only the visible rows exist in the DOM; scrolling
+ *                         loads just the chunks under the viewport
+ *   • Search            – case‑insensitive text match across all columns
+ *   • Group by          – any column passed as a group column, largest
+ *                         groups first, click a group to expand it
+ *   • Links             – cells of a {@link #linkColumn(int)} open the
+ *                         (relative) path or URL they hold
+ * Search and grouping load the remaining chunks on first use. All text is
+ * rendered with textContent, so markup inside messages is shown, not run.
+ *
+ * Tuning (system properties)
+ *   • html.chunkRows – rows per chunk file (default 5000)
+ */
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+public class HtmlReport implements Closeable {
+
+    static final int CHUNK_ROWS = Integer.getInteger("html.chunkRows", 5000);
+
+    // Distinct values per group column listed in the manifest (largest first)
+    private static final int MANIFEST_GROUPS = 1000;
+
+    private final Path dataDir;
+    private final String title;
+    private final String[] columns;
+    private final int[] groupColumns;
+    private final List<Map<String, Integer>> groupCounts = new ArrayList<>();
+    private final Set<Integer> linkColumns = new TreeSet<>();
+
+    private Writer chunk;          // open chunk file, null between chunks
+    private int chunkCount;
+    private int rowsInChunk;
+    private long rows;
+
+    /**
+     * Starts a report: writes the viewer and clears any data left by an earlier run.
+     *
+     * @param htmlFile     Viewer file; data goes to a sibling "<name>_data" folder.
+     * @param columns      Column headers; the last non‑link column gets the most width.
+     * @param groupColumns Indexes of the columns offered in "Group by".
+     */
+    HtmlReport(Path htmlFile, String title, String[] columns, int... groupColumns) throws IOException {
+        String name = htmlFile.getFileName().toString().replaceFirst("\\.html?$", "");
+        Path parent = htmlFile.toAbsolutePath().getParent();
+        this.dataDir = parent.resolve(name + "_data");
+        this.title = title;
+        this.columns = columns.clone();
+        this.groupColumns = groupColumns.clone();
+        for (int ignored : groupColumns) {
+            groupCounts.add(new HashMap<>());
+        }
+
+        Files.createDirectories(dataDir);
+        try (DirectoryStream<Path> old = Files.newDirectoryStream(dataDir, "{chunk-*.js,manifest.js}")) {
+            for (Path file : old) {
+                Files.delete(file);
+            }
+        }
+        Files.write(htmlFile, viewer(dataDir.getFileName().toString()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Shows the column's values as links, e.g. paths to evidence bundles beside the report. */
+    void linkColumn(int column) {
+        linkColumns.add(column);
+    }
+
+    /* ─────────────────────── Writing ─────────────────────── */
+
+    /** Appends one row; missing trailing cells are written as empty strings. */
+    void add(String... row) throws IOException {
+        if (chunk == null) {
+            openChunk();
+        }
+        chunk.write(rowsInChunk == 0 ? "[" : ",");
+        chunk.write('[');
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                chunk.write(',');
+            }
+            chunk.write(json(i < row.length && row[i] != null ? row[i] : ""));
+        }
+        chunk.write(']');
+        for (int g = 0; g < groupColumns.length; g++) {
+            int column = groupColumns[g];
+            groupCounts.get(g).merge(column < row.length && row[column] != null ? row[column] : "", 1, Integer::sum);
+        }
+        rows++;
+        if (++rowsInChunk == CHUNK_ROWS) {
+            closeChunk();
+        }
+    }
+
+    // chunk-N.js = window.__reportChunk(N, "<base64(gzip(JSON rows))>");
+    private void openChunk() throws IOException {
+        OutputStream file = new BufferedOutputStream(Files.newOutputStream(
+                dataDir.resolve(String.format("chunk-%05d.js", chunkCount))));
+        file.write(("window.__reportChunk(" + chunkCount + ", \"").getBytes(StandardCharsets.US_ASCII));
+        // Closing the base64 stream must not close the file: the call's tail is written after it
+        OutputStream keepOpen = new FilterOutputStream(file) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        OutputStream base64 = Base64.getEncoder().wrap(keepOpen);
+        chunk = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(base64, 64 * 1024), StandardCharsets.UTF_8)) {
+            @Override
+            public void close() throws IOException {
+                super.close();   // finishes gzip + base64 padding
+                file.write("\");\n".getBytes(StandardCharsets.US_ASCII));
+                file.close();
+            }
+        };
+        rowsInChunk = 0;
+    }
+
+    private void closeChunk() throws IOException {
+        chunk.write(']');
+        chunk.close();
+        chunk = null;
+        chunkCount++;
+    }
+
+    /** Finishes the last chunk and writes the manifest the viewer starts from. */
+    @Override
+    public void close() throws IOException {
+        if (chunk != null) {
+            closeChunk();
+        }
+        StringBuilder manifest = new StringBuilder("window.__reportManifest = {")
+                .append("\"title\":").append(json(title))
+                .append(",\"generated\":").append(json(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))))
+                .append(",\"rows\":").append(rows)
+                .append(",\"chunkRows\":").append(CHUNK_ROWS)
+                .append(",\"chunks\":").append(chunkCount)
+                .append(",\"columns\":[");
+        for (int i = 0; i < columns.length; i++) {
+            manifest.append(i > 0 ? "," : "").append(json(columns[i]));
+        }
+        manifest.append("],\"linkColumns\":").append(linkColumns.toString().replace(" ", ""))
+                .append(",\"groupColumns\":").append(Arrays.toString(groupColumns).replace(" ", ""))
+                .append(",\"groups\":{");
+        for (int g = 0; g < groupColumns.length; g++) {
+            List<Map.Entry<String, Integer>> counts = new ArrayList<>(groupCounts.get(g).entrySet());
+            counts.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+            manifest.append(g > 0 ? "," : "").append('"').append(groupColumns[g]).append("\":[");
+            for (int i = 0; i < Math.min(MANIFEST_GROUPS, counts.size()); i++) {
+                manifest.append(i > 0 ? "," : "").append('[').append(json(counts.get(i).getKey()))
+                        .append(',').append(counts.get(i).getValue()).append(']');
+            }
+            manifest.append(']');
+        }
+        manifest.append("}};\n");
+        Files.write(dataDir.resolve("manifest.js"), manifest.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String json(String value) {
+        StringBuilder out = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    /* ─────────────────────── Viewer ─────────────────────── */
+
+    private String viewer(String dataDirName) {
+        return "<!DOCTYPE html><html><head><meta charset=\"utf-8\">"
+                + "<title>" + title.replace("&", "&amp;").replace("<", "&lt;") + "</title><style>"
+                + "body{margin:0;font:13px system-ui,sans-serif;display:flex;flex-direction:column;height:100vh}"
+                + "header{padding:8px 12px;display:flex;gap:12px;align-items:center;flex-wrap:wrap}"
+                + "h2{margin:0;font-size:16px}#status{color:#666}"
+                + "#summary{padding:0 12px 8px;color:#444;border-bottom:1px solid #ccc}"
+                + ".grid{display:grid;grid-template-columns:var(--cols)}"
+                + "#head{font-weight:600;background:#f3f3f3;border-bottom:1px solid #ccc}"
+                + "#head div,.row div{padding:4px 8px;white-space:nowrap;overflow:hidden;text-overflow:ellipsis}"
+                + "#scroll{flex:1;overflow:auto}#spacer{position:relative}"
+                + ".row{position:absolute;left:0;right:0;height:24px;box-sizing:border-box;border-bottom:1px solid #eee}"
+                + ".row:hover{background:#f5f8ff}.group{font-weight:600;background:#eef2f7;cursor:pointer}"
+                + ".group div{grid-column:1/-1}"
+                + "</style></head><body>"
+                + "<header><h2 id=\"title\"></h2><input id=\"q\" type=\"search\" placeholder=\"Search…\" size=\"40\">"
+                + "<label>Group by <select id=\"group\"><option value=\"\">none</option></select></label>"
+                + "<span id=\"status\"></span></header><div id=\"summary\"></div>"
+                + "<div id=\"head\" class=\"grid\"></div><div id=\"scroll\"><div id=\"spacer\"></div></div>"
+                + "<script src=\"" + dataDirName.replace("\"", "%22") + "/manifest.js\"></script>"
+                + "<script>" + VIEWER_SCRIPT.replace("__DIR__", json(dataDirName)) + "</script></body></html>";
+    }
+
+    private static final String VIEWER_SCRIPT =
+            "(function () {" +
+            "var M = window.__reportManifest, DIR = __DIR__, H = 24, chunks = [], lower = [], waiting = {};" +
+            "var view = null, expanded = {}, all = null, seq = 0, scheduled = false;" +
+            "var $ = function (id) { return document.getElementById(id); };" +
+            "if (!M) { document.body.textContent = 'Report data not found – keep the ' + DIR + ' folder next to this file.'; return; }" +
+            "$('title').textContent = M.title + ' – ' + M.rows.toLocaleString() + ' rows (' + M.generated + ')';" +
+            "var wide = M.columns.length - 1;" +
+            "while (wide > 0 && M.linkColumns.indexOf(wide) >= 0) wide--;" +
+            "document.documentElement.style.setProperty('--cols', M.columns.map(function (c, i) {" +
+            "  return 'minmax(0,' + (i === wide ? 3 : M.linkColumns.indexOf(i) >= 0 ? 0.5 : 1) + 'fr)'; }).join(' '));" +
+            "M.columns.forEach(function (c, i) {" +
+            "  var d = document.createElement('div'); d.textContent = c; $('head').appendChild(d);" +
+            "  if (M.groupColumns.indexOf(i) >= 0) {" +
+            "    var o = document.createElement('option'); o.value = i; o.textContent = c; $('group').appendChild(o); }" +
+            "});" +
+            "if (M.groupColumns.length) {" +
+            "  var last = M.groupColumns[M.groupColumns.length - 1];" +
+            "  $('summary').textContent = M.columns[last] + ': ' + (M.groups[last] || []).slice(0, 8).map(function (e) {" +
+            "    return (e[0] || '(empty)') + ' ' + e[1].toLocaleString(); }).join(' · ');" +
+            "}" +
+            // Chunk loading: <script> → __reportChunk → base64 → gunzip → JSON
+            "window.__reportChunk = function (i, b64) {" +
+            "  var bin = atob(b64), bytes = new Uint8Array(bin.length);" +
+            "  for (var k = 0; k < bin.length; k++) bytes[k] = bin.charCodeAt(k);" +
+            "  new Response(new Blob([bytes]).stream().pipeThrough(new DecompressionStream('gzip'))).text().then(function (t) {" +
+            "    chunks[i] = JSON.parse(t);" +
+            "    (waiting[i] || []).forEach(function (f) { f(chunks[i]); }); delete waiting[i];" +
+            "  });" +
+            "};" +
+            "function load(i) { return new Promise(function (res) {" +
+            "  if (chunks[i]) { res(chunks[i]); return; }" +
+            "  if (waiting[i]) { waiting[i].push(res); return; }" +
+            "  waiting[i] = [res];" +
+            "  var s = document.createElement('script');" +
+            "  s.src = DIR + '/chunk-' + ('0000' + i).slice(-5) + '.js'; s.onload = function () { s.remove(); };" +
+            "  document.head.appendChild(s);" +
+            "}); }" +
+            "function loadAll() {" +
+            "  if (all) return all;" +
+            "  var done = 0, ids = [];" +
+            "  for (var i = 0; i < M.chunks; i++) ids.push(i);" +
+            "  all = Promise.all(ids.map(function (i) { return load(i).then(function (rows) {" +
+            "    lower[i] = rows.map(function (r) { return r.join('\\t').toLowerCase(); });" +
+            "    $('status').textContent = 'Loading ' + (++done) + ' / ' + M.chunks + ' chunks…';" +
+            "  }); }));" +
+            "  return all;" +
+            "}" +
+            "function rowAt(id) { var c = chunks[Math.floor(id / M.chunkRows)]; return c ? c[id % M.chunkRows] : null; }" +
+            // Virtualised rendering: only rows inside the viewport (± 10) are built
+            "function render() {" +
+            "  scheduled = false;" +
+            "  var sc = $('scroll'), n = view ? view.length : M.rows, missing = {}, frag = document.createDocumentFragment();" +
+            "  $('spacer').style.height = n * H + 'px';" +
+            "  var first = Math.max(0, Math.floor(sc.scrollTop / H) - 10);" +
+            "  var end = Math.min(n, Math.ceil((sc.scrollTop + sc.clientHeight) / H) + 10);" +
+            "  for (var i = first; i < end; i++) {" +
+            "    var item = view ? view[i] : i, el = document.createElement('div'), d;" +
+            "    el.style.top = i * H + 'px';" +
+            "    if (typeof item === 'object') {" +
+            "      el.className = 'row grid group'; d = document.createElement('div');" +
+            "      d.textContent = (expanded[item.key] ? '▾ ' : '▸ ') + (item.key || '(empty)') + ' (' + item.count.toLocaleString() + ')';" +
+            "      el.appendChild(d);" +
+            "      el.onclick = (function (key) { return function () { expanded[key] = !expanded[key]; rebuild(false); }; })(item.key);" +
+            "    } else {" +
+            "      el.className = 'row grid'; var r = rowAt(item);" +
+            "      if (!r) missing[Math.floor(item / M.chunkRows)] = true;" +
+            "      for (var j = 0; j < M.columns.length; j++) {" +
+            "        d = document.createElement('div'); el.appendChild(d);" +
+            "        if (r && M.linkColumns.indexOf(j) >= 0 && /^(https?:|[^:]+$)/.test(r[j])) {" +
+            "          var a = document.createElement('a'); a.href = r[j]; a.target = '_blank'; a.textContent = 'open'; d.appendChild(a);" +
+            "        } else { d.textContent = r ? r[j] : '…'; d.title = r ? r[j] : ''; }" +
+            "      }" +
+            "    }" +
+            "    frag.appendChild(el);" +
+            "  }" +
+            "  $('spacer').replaceChildren(frag);" +
+            "  Object.keys(missing).forEach(function (c) { load(+c).then(schedule); });" +
+            "}" +
+            "function schedule() { if (!scheduled) { scheduled = true; requestAnimationFrame(render); } }" +
+            // Search / grouping over every chunk
+            "function rebuild(toTop) {" +
+            "  var q = $('q').value.trim().toLowerCase(), gc = $('group').value, my = ++seq;" +
+            "  if (toTop) $('scroll').scrollTop = 0;" +
+            "  if (!q && gc === '') { view = null; $('status').textContent = ''; schedule(); return; }" +
+            "  loadAll().then(function () {" +
+            "    if (my !== seq) return;" +
+            "    var ids = [];" +
+            "    for (var c = 0; c < M.chunks; c++) {" +
+            "      var L = lower[c];" +
+            "      for (var k = 0; k < L.length; k++) if (!q || L[k].indexOf(q) >= 0) ids.push(c * M.chunkRows + k);" +
+            "    }" +
+            "    var status = q ? ids.length.toLocaleString() + ' matching rows' : '';" +
+            "    if (gc === '') { view = ids; } else {" +
+            "      var col = +gc, groups = new Map();" +
+            "      ids.forEach(function (id) { var key = rowAt(id)[col], a = groups.get(key);" +
+            "        if (!a) groups.set(key, a = []); a.push(id); });" +
+            "      view = [];" +
+            "      Array.from(groups).sort(function (a, b) { return b[1].length - a[1].length; }).forEach(function (e) {" +
+            "        view.push({key: e[0], count: e[1].length});" +
+            "        if (expanded[e[0]]) for (var x = 0; x < e[1].length; x++) view.push(e[1][x]);" +
+            "      });" +
+            "      status += (status ? ' in ' : '') + groups.size.toLocaleString() + ' groups';" +
+            "    }" +
+            "    $('status').textContent = status; schedule();" +
+            "  });" +
+            "}" +
+            "var timer;" +
+            "$('q').addEventListener('input', function () { clearTimeout(timer); timer = setTimeout(function () { rebuild(true); }, 250); });" +
+            "$('group').addEventListener('change', function () { expanded = {}; rebuild(true); });" +
+            "$('scroll').addEventListener('scroll', schedule); window.addEventListener('resize', schedule);" +
+            "schedule();" +
+            "})();";
+}
@@ -0,0 +1,307 @@
+/**
+ * ImageAudit.java
+ *
+ * Oversized and unoptimised images on pages the crawl has already rendered.
+ *
+ * One async script per page collects every visible <img> and CSS background
+ * image: natural size, rendered size, device pixel ratio, position and the
+ * loading / width / height attributes. Each image is then checked for
+ *   • Oversized      – natural pixels > 1.5 × rendered pixels × DPR²
+ *   • Legacy format  – JPEG / PNG / GIF / BMP where WebP or AVIF would be smaller,
+ *                      judged by the response MIME type (extension as fallback)
+ *   • Not lazy       – <img> below the fold without loading="lazy"
+ *   • No dimensions  – <img> without width and height attributes (layout shift)
+ *
+ * Estimated saving = bytes lost by resizing to the rendered size, plus the
+ * typical WebP saving for its format on what remains. Byte sizes come from the
+ * page's DevTools network events, falling back to Resource Timing.
+ * Results are aggregated per image URL across every page that uses it,
+ * flagged there or not: the largest rendering decides the oversize check and
+ * the saving, while lazy‑loading and dimension issues count from any page.
+ *
+ * Decoding background images requests them again, so the console and
+ * network log entries this produces are discarded after the script – call
+ * {@link #collect} only once the page's own logs have been read.
+ */
+import org.apache.poi.ss.usermodel.*;
+import org.json.JSONObject;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.logging.LogType;
+
+import java.util.*;
+
+public class ImageAudit {
+
+    // Format names by response MIME type; SVG, WebP and AVIF are never flagged as legacy
+    private static final Map<String, String> FORMAT_BY_MIME = new HashMap<>();
+    static {
+        FORMAT_BY_MIME.put("image/jpeg", "jpeg");
+        FORMAT_BY_MIME.put("image/jpg", "jpeg");
+        FORMAT_BY_MIME.put("image/pjpeg", "jpeg");
+        FORMAT_BY_MIME.put("image/png", "png");
+        FORMAT_BY_MIME.put("image/gif", "gif");
+        FORMAT_BY_MIME.put("image/bmp", "bmp");
+        FORMAT_BY_MIME.put("image/x-ms-bmp", "bmp");
+        FORMAT_BY_MIME.put("image/webp", "webp");
+        FORMAT_BY_MIME.put("image/avif", "avif");
+        FORMAT_BY_MIME.put("image/svg+xml", "svg");
+    }
+
+    // Typical size reduction when re‑encoding as WebP at similar quality
+    private static final Map<String, Double> WEBP_SAVING = new HashMap<>();
+    static {
+        WEBP_SAVING.put("jpg", 0.30);
+        WEBP_SAVING.put("jpeg", 0.30);
+        WEBP_SAVING.put("png", 0.45);
+        WEBP_SAVING.put("gif", 0.50);
+        WEBP_SAVING.put("bmp", 0.90);
+    }
+
+    private static final double OVERSIZE_FACTOR = 1.5;
+
+    /*
+     * Returns {dpr, viewportHeight, images: [{url, kind, nw, nh, rw, rh, top,
+     * lazy, dims, bytes}]}. Background images are decoded off‑screen to learn
+     * their natural size; a 5 s guard returns whatever is known by then.
+     */
+    private static final String COLLECT_SCRIPT =
+            "var done = arguments[arguments.length - 1], finished = false;" +
+            "var dpr = window.devicePixelRatio || 1, vh = window.innerHeight, imgs = [], bgs = [];" +
+            "function bytes(u) { var e = performance.getEntriesByName(u);" +
+            "  return e.length ? (e[0].encodedBodySize || e[0].transferSize || 0) : 0; }" +
+            "function box(el) { var r = el.getBoundingClientRect();" +
+            "  return {rw: Math.round(r.width), rh: Math.round(r.height), top: Math.round(r.top + window.scrollY)}; }" +
+            "document.querySelectorAll('img').forEach(function (img) {" +
+            "  var src = img.currentSrc || img.src, b = box(img);" +
+            "  if (!src || src.indexOf('data:') === 0 || !b.rw || !b.rh) return;" +
+            "  imgs.push({url: src, kind: 'img', nw: img.naturalWidth, nh: img.naturalHeight, rw: b.rw, rh: b.rh," +
+            "    top: b.top, lazy: img.loading === 'lazy'," +
+            "    dims: img.hasAttribute('width') && img.hasAttribute('height'), bytes: bytes(src)});" +
+            "});" +
+            "var els = document.querySelectorAll('body *');" +
+            "for (var i = 0; i < els.length && i < 5000; i++) {" +
+            "  var m = getComputedStyle(els[i]).backgroundImage.match(/url\\([\"']?([^\"')]+)[\"']?\\)/);" +
+            "  if (!m || m[1].indexOf('data:') === 0) continue;" +
+            "  var b = box(els[i]); if (!b.rw || !b.rh) continue;" +
+            "  var u = new URL(m[1], location.href).href;" +
+            "  bgs.push({url: u, kind: 'background', nw: 0, nh: 0, rw: b.rw, rh: b.rh, top: b.top," +
+            "    lazy: true, dims: true, bytes: bytes(u)});" +
+            "}" +
+            "function finish() { if (!finished) { finished = true; done({dpr: dpr, viewport: vh, images: imgs.concat(bgs)}); } }" +
+            "setTimeout(finish, 5000);" +
+            "Promise.all(bgs.map(function (b) { return new Promise(function (res) {" +
+            "  var im = new Image();" +
+            "  im.onload = function () { b.nw = im.naturalWidth; b.nh = im.naturalHeight; res(); };" +
+            "  im.onerror = function () { res(); };" +
+            "  im.src = b.url;" +
+            "}); })).then(finish);";
+
+    /** One image as seen on one page. */
+    static class Image {
+        String url;
+        String kind;
+        String format;
+        long naturalWidth;
+        long naturalHeight;
+        long renderedWidth;
+        long renderedHeight;
+        double dpr;
+        long bytes;
+        final List<String> issues = new ArrayList<>();         // of the file: oversized, legacy format
+        final List<String> markupIssues = new ArrayList<>();   // of this <img> tag: lazy loading, dimensions
+        long savingBytes;
+    }
+
+    /** An image URL across every page that shows it. */
+    static class ImageStats {
+        final String url;
+        final Set<String> pages = new LinkedHashSet<>();
+        final Set<String> markupIssues = new LinkedHashSet<>();
+        Image largestUse;
+        long savingBytes;
+
+        ImageStats(String url) {
+            this.url = url;
+        }
+
+        List<String> issues() {
+            List<String> issues = new ArrayList<>(largestUse.issues);
+            issues.addAll(markupIssues);
+            return issues;
+        }
+    }
+
+    private final Map<String, ImageStats> byUrl = new HashMap<>();
+
+    /* ─────────────────────── Collection ─────────────────────── */
+
+    /**
+     * Collects and checks the images of the page currently loaded.
+     *
+     * @param events The page's DevTools network events, used for byte sizes and
+     *               MIME types (may be empty).
+     * @return Every visible image, checked; those without issues still count
+     *         towards {@link #record}'s aggregate.
+     */
+    @SuppressWarnings("unchecked")
+    static List<Image> collect(WebDriver driver, List<JSONObject> events) {
+        Map<String, Object> page;
+        try {
+            page = (Map<String, Object>) ((JavascriptExecutor) driver).executeAsyncScript(COLLECT_SCRIPT);
+        } finally {
+            // The script's own image requests must not show up as the next page's errors
+            driver.manage().logs().get(LogType.BROWSER);
+            driver.manage().logs().get(LogType.PERFORMANCE);
+        }
+        double dpr = ((Number) page.get("dpr")).doubleValue();
+        long viewport = ((Number) page.get("viewport")).longValue();
+        Map<String, Long> networkBytes = bytesByUrl(events);
+        Map<String, String> mimeTypes = mimeTypesByUrl(events);
+
+        List<Image> images = new ArrayList<>();
+        for (Map<String, Object> raw : (List<Map<String, Object>>) page.get("images")) {
+            Image image = new Image();
+            image.url = (String) raw.get("url");
+            image.kind = (String) raw.get("kind");
+            image.format = FORMAT_BY_MIME.getOrDefault(mimeTypes.get(image.url), format(image.url));
+            image.naturalWidth = ((Number) raw.get("nw")).longValue();
+            image.naturalHeight = ((Number) raw.get("nh")).longValue();
+            image.renderedWidth = ((Number) raw.get("rw")).longValue();
+            image.renderedHeight = ((Number) raw.get("rh")).longValue();
+            image.dpr = dpr;
+            image.bytes = networkBytes.getOrDefault(image.url, ((Number) raw.get("bytes")).longValue());
+
+            check(image, ((Number) raw.get("top")).longValue() > viewport,
+                    Boolean.TRUE.equals(raw.get("lazy")), Boolean.TRUE.equals(raw.get("dims")));
+            images.add(image);
+        }
+        return images;
+    }
+
+    private static void check(Image image, boolean belowFold, boolean lazy, boolean hasDimensions) {
+        double remaining = image.bytes;
+        double neededPixels = image.renderedWidth * image.dpr * image.renderedHeight * image.dpr;
+        double naturalPixels = (double) image.naturalWidth * image.naturalHeight;
+        if (!"svg".equals(image.format) && naturalPixels > OVERSIZE_FACTOR * neededPixels) {
+            image.issues.add("oversized " + image.naturalWidth + "×" + image.naturalHeight + " for "
+                    + Math.round(image.renderedWidth * image.dpr) + "×" + Math.round(image.renderedHeight * image.dpr));
+            remaining = image.bytes * neededPixels / naturalPixels;
+        }
+        Double webp = WEBP_SAVING.get(image.format);
+        if (webp != null) {
+            image.issues.add("legacy format " + image.format);
+            remaining *= 1 - webp;
+        }
+        image.savingBytes = Math.round(image.bytes - remaining);
+
+        if ("img".equals(image.kind)) {
+            if (belowFold && !lazy) {
+                image.markupIssues.add("below fold without loading=lazy");
+            }
+            if (!hasDimensions) {
+                image.markupIssues.add("missing width/height");
+            }
+        }
+    }
+
+    // Encoded bytes per URL from Network.requestWillBeSent + loadingFinished
+    private static Map<String, Long> bytesByUrl(List<JSONObject> events) {
+        Map<String, String> urlByRequest = new HashMap<>();
+        Map<String, Long> bytes = new HashMap<>();
+        for (JSONObject event : events) {
+            JSONObject params = event.optJSONObject("params");
+            if (params == null) {
+                continue;
+            }
+            String method = event.optString("method");
+            if ("Network.requestWillBeSent".equals(method) && params.optJSONObject("request") != null) {
+                urlByRequest.put(params.optString("requestId"), params.getJSONObject("request").optString("url"));
+            } else if ("Network.loadingFinished".equals(method)) {
+                String url = urlByRequest.get(params.optString("requestId"));
+                if (url != null) {
+                    bytes.put(url, params.optLong("encodedDataLength", 0));
+                }
+            }
+        }
+        return bytes;
+    }
+
+    // Response MIME type per URL from Network.responseReceived, lower‑case without parameters
+    private static Map<String, String> mimeTypesByUrl(List<JSONObject> events) {
+        Map<String, String> mimeTypes = new HashMap<>();
+        for (JSONObject event : events) {
+            JSONObject params = event.optJSONObject("params");
+            if (params == null || !"Network.responseReceived".equals(event.optString("method"))) {
+                continue;
+            }
+            JSONObject response = params.optJSONObject("response");
+            if (response != null && !response.optString("mimeType").isEmpty()) {
+                mimeTypes.put(response.optString("url"),
+                        response.optString("mimeType").split(";")[0].trim().toLowerCase());
+            }
+        }
+        return mimeTypes;
+    }
+
+    // File extension of the URL path, lower‑case ("" when there is none)
+    static String format(String url) {
+        String path = url.replaceAll("[?#].*$", "");
+        int dot = path.lastIndexOf('.');
+        return dot < path.lastIndexOf('/') || dot < 0 ? "" : path.substring(dot + 1).toLowerCase();
+    }
+
+    /* ─────────────────────── Aggregation ─────────────────────── */
+
+    void record(String pageUrl, List<Image> images) {
+        for (Image image : images) {
+            ImageStats stats = byUrl.computeIfAbsent(image.url, ImageStats::new);
+            stats.pages.add(pageUrl);
+            stats.markupIssues.addAll(image.markupIssues);
+            if (stats.largestUse == null || image.renderedWidth * image.renderedHeight
+                    > stats.largestUse.renderedWidth * stats.largestUse.renderedHeight) {
+                stats.largestUse = image;
+            }
+            // The largest rendering decides how far the file can shrink everywhere
+            stats.savingBytes = stats.largestUse.savingBytes;
+        }
+    }
+
+    /** Writes an "Images" sheet, biggest total saving (per‑load saving × pages) first. */
+    void writeSheet(Workbook workbook) {
+        List<ImageStats> ranked = new ArrayList<>();
+        for (ImageStats s : byUrl.values()) {
+            if (!s.issues().isEmpty()) {
+                ranked.add(s);
+            }
+        }
+        ranked.sort(Comparator.comparingLong((ImageStats s) -> s.savingBytes * s.pages.size()).reversed());
+
+        Sheet sheet = workbook.createSheet("Images");
+        String[] headers = {"Image URL", "Kind", "Format", "Natural Size", "Largest Rendered (×DPR)",
+                "KB", "Est. Saving KB", "Pages", "Total Est. Saving KB", "Issues", "Example Page"};
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < headers.length; i++) {
+            header.createCell(i).setCellValue(headers[i]);
+        }
+        int rowNum = 1;
+        long total = 0;
+        for (ImageStats s : ranked) {
+            Image use = s.largestUse;
+            Row row = sheet.createRow(rowNum++);
+            row.createCell(0).setCellValue(s.url);
+            row.createCell(1).setCellValue(use.kind);
+            row.createCell(2).setCellValue(use.format);
+            row.createCell(3).setCellValue(use.naturalWidth + "×" + use.naturalHeight);
+            row.createCell(4).setCellValue(Math.round(use.renderedWidth * use.dpr) + "×" + Math.round(use.renderedHeight * use.dpr));
+            row.createCell(5).setCellValue(use.bytes / 1024);
+            row.createCell(6).setCellValue(s.savingBytes / 1024);
+            row.createCell(7).setCellValue(s.pages.size());
+            row.createCell(8).setCellValue(s.savingBytes * s.pages.size() / 1024);
+            row.createCell(9).setCellValue(String.join("; ", s.issues()));
+            row.createCell(10).setCellValue(s.pages.iterator().next());
+            total += s.savingBytes * s.pages.size();
+        }
+        System.out.println("🖼️ " + ranked.size() + " flagged images, ~" + total / 1024 + " KB estimated saving across the crawl");
+    }
+}
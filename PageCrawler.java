@@ -0,0 +1,385 @@
+/**
+ * PageCrawler.java
+ *
+ * Runs one per‑page check over a list of URLs with tail‑latency controls, so
+ * total crawl time is set by typical pages rather than the slowest one.
+ *
+ *   • Deadline   – every page gets a fixed time budget covering all of its
+ *                  attempts; Chrome's page‑load and script timeouts are set
+ *                  to the same budget so a hanging page cannot block a worker
+ *   • Strategy   – pageLoadStrategy normal / eager / none
+ *   • Retries    – failed attempts are retried with exponential backoff
+ *                  while the deadline allows
+ *   • Hedging    – optional: once an attempt runs past the p95 of successful
+ *                  loads so far, a second attempt starts on a spare browser
+ *                  and whichever finishes first wins
+ *
+ * Pages that never succeed come back as TIMEOUT / FAILED outcomes so reports
+ * can list them instead of silently dropping them (see {@link #writeLoadSheet}).
+ *
+ * Tuning (system properties)
+ *   • load.strategy        – normal | eager | none (default normal)
+ *   • load.deadlineSeconds – per‑page budget (default 45)
+ *   • load.retries         – extra attempts after a failure (default 2)
+ *   • load.backoffMs       – first retry delay, doubled each time (default 1000)
+ *   • load.hedge           – true to enable hedged attempts (default false)
+ */
+import org.apache.poi.ss.usermodel.*;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.logging.LogType;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+public class PageCrawler<T> {
+
+    static final String STRATEGY = System.getProperty("load.strategy", "normal");
+    static final long DEADLINE_MS = TimeUnit.SECONDS.toMillis(Integer.getInteger("load.deadlineSeconds", 45));
+    static final int RETRIES = Integer.getInteger("load.retries", 2);
+    static final long BACKOFF_MS = Long.getLong("load.backoffMs", 1000);
+    static final boolean HEDGE = Boolean.getBoolean("load.hedge");
+
+    // p95 is only trusted once this many pages have loaded
+    private static final int MIN_SAMPLES = 10;
+
+    /** Work done on a page once the crawler has loaded it. */
+    interface Check<T> {
+        T run(ChromeDriver driver, String url) throws Exception;
+    }
+
+    enum Status { OK, TIMEOUT, FAILED }
+
+    /** What happened to one page. */
+    static class Outcome<T> {
+        final String url;
+        Status status;
+        T result;
+        int attempts;
+        boolean hedged;
+        long elapsedMs;
+        String error;
+
+        Outcome(String url) {
+            this.url = url;
+        }
+    }
+
+    private final Supplier<ChromeDriver> factory;
+    private final Check<T> check;
+    private final int workers;
+    // One entry per browser slot; an empty slot lost its browser and starts a new one on the next take
+    private final BlockingQueue<Optional<ChromeDriver>> idle = new LinkedBlockingQueue<>();
+    private final List<ChromeDriver> all = Collections.synchronizedList(new ArrayList<>());
+    private final List<Long> loadTimes = new ArrayList<>();
+    private final ExecutorService attempts = Executors.newCachedThreadPool();
+
+    /**
+     * @param workers Pages processed in parallel; one extra browser is started
+     *                as the hedging spare when load.hedge is on.
+     * @param factory Creates a browser; its options should go through {@link #configure}.
+     */
+    PageCrawler(int workers, Supplier<ChromeDriver> factory, Check<T> check) {
+        this.workers = workers;
+        this.factory = factory;
+        this.check = check;
+        for (int i = 0; i < workers + (HEDGE ? 1 : 0); i++) {
+            idle.add(Optional.of(newDriver()));
+        }
+    }
+
+    /** Applies load.strategy to options a tool is about to start Chrome with. */
+    static ChromeOptions configure(ChromeOptions options) {
+        switch (STRATEGY) {
+            case "eager":
+                options.setPageLoadStrategy(PageLoadStrategy.EAGER);
+                break;
+            case "none":
+                options.setPageLoadStrategy(PageLoadStrategy.NONE);
+                break;
+            default:
+                options.setPageLoadStrategy(PageLoadStrategy.NORMAL);
+        }
+        return options;
+    }
+
+    private ChromeDriver newDriver() {
+        ChromeDriver driver = factory.get();
+        driver.manage().timeouts().pageLoadTimeout(Duration.ofMillis(DEADLINE_MS));
+        driver.manage().timeouts().scriptTimeout(Duration.ofMillis(DEADLINE_MS));
+        driver.manage().timeouts().implicitlyWait(Duration.ZERO);
+        all.add(driver);
+        return driver;
+    }
+
+    /* ─────────────────────── Crawl ─────────────────────── */
+
+    /**
+     * Crawls every URL and returns outcomes in input order. {@code onDone} is
+     * called once per page as it finishes (from worker threads, one at a time).
+     */
+    List<Outcome<T>> crawl(List<String> urls, Consumer<Outcome<T>> onDone) throws InterruptedException {
+        List<Outcome<T>> outcomes = new ArrayList<>();
+        for (String url : urls) {
+            outcomes.add(new Outcome<>(url));
+        }
+        BlockingQueue<Outcome<T>> pending = new LinkedBlockingQueue<>(outcomes);
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        for (int w = 0; w < workers; w++) {
+            pool.submit(() -> {
+                Outcome<T> outcome;
+                while ((outcome = pending.poll()) != null) {
+                    crawlOne(outcome);
+                    synchronized (this) {
+                        onDone.accept(outcome);
+                    }
+                }
+                return null;
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        return outcomes;
+    }
+
+    private void crawlOne(Outcome<T> outcome) {
+        long start = System.currentTimeMillis();
+        long deadline = start + DEADLINE_MS;
+        outcome.status = Status.FAILED;
+
+        for (int attempt = 0; attempt <= RETRIES; attempt++) {
+            if (attempt > 0) {
+                long backoff = Math.min(BACKOFF_MS << (attempt - 1), deadline - System.currentTimeMillis());
+                if (backoff < 0) {
+                    break;
+                }
+                sleep(backoff);
+            }
+            // Waiting for a browser still held by an abandoned attempt does not count against the budget
+            long waitStart = System.currentTimeMillis();
+            ChromeDriver driver;
+            try {
+                driver = take();
+            } catch (RuntimeException e) {
+                outcome.attempts++;
+                outcome.status = Status.FAILED;
+                outcome.error = "no browser: " + String.valueOf(e.getMessage()).split("\n")[0];
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+                continue;
+            }
+            deadline += System.currentTimeMillis() - waitStart;
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                idle.add(Optional.of(driver));
+                outcome.status = Status.TIMEOUT;
+                break;
+            }
+            outcome.attempts++;
+            long attemptStart = System.currentTimeMillis();
+            try {
+                outcome.result = runAttempt(outcome, driver, remaining);
+                outcome.status = Status.OK;
+                recordLoadTime(System.currentTimeMillis() - attemptStart);
+                break;
+            } catch (TimeoutException | java.util.concurrent.TimeoutException e) {
+                outcome.status = Status.TIMEOUT;
+                outcome.error = "no result within " + DEADLINE_MS + " ms";
+                break;
+            } catch (Exception e) {
+                outcome.status = Status.FAILED;
+                outcome.error = String.valueOf(e.getMessage()).split("\n")[0];
+            }
+        }
+        outcome.elapsedMs = System.currentTimeMillis() - start;
+        if (outcome.status != Status.OK) {
+            System.out.println("⏱️ " + outcome.status + " after " + outcome.attempts + " attempt(s): "
+                    + outcome.url + " – " + outcome.error);
+        }
+    }
+
+    // One attempt, hedged on a spare browser once it runs past the observed p95
+    private T runAttempt(Outcome<T> outcome, ChromeDriver driver, long remaining) throws Exception {
+        CompletableFuture<T> primary = CompletableFuture.supplyAsync(() -> loadAndCheck(driver, outcome.url), attempts);
+        long hedgeAfter = hedgeAfterMs();
+        if (!HEDGE || hedgeAfter <= 0 || hedgeAfter >= remaining) {
+            return await(primary, remaining);
+        }
+        try {
+            return primary.get(hedgeAfter, TimeUnit.MILLISECONDS);
+        } catch (java.util.concurrent.TimeoutException slow) {
+            Optional<ChromeDriver> slot = idle.poll();
+            if (slot == null || !slot.isPresent()) {
+                if (slot != null) {
+                    idle.add(slot);   // starting a browser now would cost more than the hedge saves
+                }
+                return await(primary, remaining - hedgeAfter);
+            }
+            ChromeDriver spare = slot.get();
+            outcome.hedged = true;
+            System.out.println("🪁 Hedging slow page (> p95 " + hedgeAfter + " ms): " + outcome.url);
+            CompletableFuture<T> hedge = CompletableFuture.supplyAsync(() -> loadAndCheck(spare, outcome.url), attempts);
+            return await(firstSuccessful(primary, hedge), remaining - hedgeAfter);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future, long timeoutMs) throws Exception {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    // Completes with the first successful result, or exceptionally once both have failed
+    private static <T> CompletableFuture<T> firstSuccessful(CompletableFuture<T> a, CompletableFuture<T> b) {
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        a.whenComplete((value, error) -> {
+            if (error == null) {
+                winner.complete(value);
+            } else {
+                b.whenComplete((other, otherError) -> {
+                    if (otherError == null) {
+                        winner.complete(other);
+                    } else {
+                        winner.completeExceptionally(error);
+                    }
+                });
+            }
+        });
+        b.whenComplete((value, error) -> {
+            if (error == null) {
+                winner.complete(value);
+            }
+        });
+        return winner;
+    }
+
+    /** A pooled browser, or a new one when the slot taken had lost its browser. */
+    private ChromeDriver take() {
+        Optional<ChromeDriver> slot;
+        try {
+            slot = idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a browser", e);
+        }
+        if (slot.isPresent()) {
+            return slot.get();
+        }
+        try {
+            return newDriver();
+        } catch (RuntimeException e) {
+            idle.add(Optional.empty());
+            throw e;
+        }
+    }
+
+    // The browser goes back to the pool when the attempt ends, even if nobody waits for it anymore
+    private T loadAndCheck(ChromeDriver driver, String url) {
+        Optional<ChromeDriver> release = Optional.of(driver);
+        try {
+            drainLogs(driver);
+            driver.get(url);
+            return check.run(driver, url);
+        } catch (TimeoutException e) {
+            throw new CompletionException(e);
+        } catch (WebDriverException e) {
+            // Anything but a timeout may mean the browser itself is gone – its slot starts a fresh one
+            all.remove(driver);
+            try {
+                driver.quit();
+            } catch (Exception ignored) {
+                /* Already gone. */
+            }
+            release = Optional.empty();
+            throw new CompletionException(e);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        } finally {
+            idle.add(release);
+        }
+    }
+
+    // Entries left by the previous page – or by an attempt abandoned mid‑load – must not count for this one
+    private static void drainLogs(ChromeDriver driver) {
+        for (String type : new String[]{LogType.BROWSER, LogType.PERFORMANCE}) {
+            try {
+                driver.manage().logs().get(type);
+            } catch (WebDriverException ignored) {
+                /* Log type not enabled by this tool. */
+            }
+        }
+    }
+
+    /* ─────────────────────── Load‑time statistics ─────────────────────── */
+
+    private synchronized void recordLoadTime(long ms) {
+        loadTimes.add(ms);
+    }
+
+    /** p95 of successful page times so far, or 0 while there are too few samples. */
+    synchronized long hedgeAfterMs() {
+        if (loadTimes.size() < MIN_SAMPLES) {
+            return 0;
+        }
+        long[] sorted = loadTimes.stream().mapToLong(Long::longValue).sorted().toArray();
+        return ContactFormBatch.percentile(sorted, 95);
+    }
+
+    /** Quits every browser the crawler started. */
+    void close() {
+        attempts.shutdownNow();
+        synchronized (all) {
+            for (ChromeDriver driver : all) {
+                try {
+                    driver.quit();
+                } catch (Exception ignored) {
+                    /* Already gone. */
+                }
+            }
+            all.clear();
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /* ─────────────────────── Report ─────────────────────── */
+
+    /** Adds a "Load Failures" sheet listing every page that timed out or failed. */
+    static void writeLoadSheet(Workbook workbook, List<? extends Outcome<?>> outcomes) {
+        Sheet sheet = workbook.createSheet("Load Failures");
+        String[] headers = {"Page URL", "Status", "Attempts", "Hedged", "Elapsed (ms)", "Error"};
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < headers.length; i++) {
+            header.createCell(i).setCellValue(headers[i]);
+        }
+        int rowNum = 1;
+        for (Outcome<?> outcome : outcomes) {
+            if (outcome.status == Status.OK) {
+                continue;
+            }
+            Row row = sheet.createRow(rowNum++);
+            row.createCell(0).setCellValue(outcome.url);
+            row.createCell(1).setCellValue(outcome.status.name());
+            row.createCell(2).setCellValue(outcome.attempts);
+            row.createCell(3).setCellValue(outcome.hedged ? "yes" : "no");
+            row.createCell(4).setCellValue(outcome.elapsedMs);
+            row.createCell(5).setCellValue(outcome.error == null ? "" : outcome.error);
+        }
+    }
+}
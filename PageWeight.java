@@ -0,0 +1,210 @@
+/**
+ * PageWeight.java
+ *
+ * Transfer size and request count per page, by resource type, taken from the
+ * DevTools performance log ConsoleErrorLogger already records:
+ *   • Network.requestWillBeSent / responseReceived → resource type per request
+ *   • Network.loadingFinished                      → encodedDataLength (bytes on the wire)
+ *
+ * Budgets come from a JSON file (-Dweight.budgets); the first entry whose
+ * regex pattern is found in the page URL applies, e.g.
+ *   [
+ *     {"pattern": "/resources/", "total": 3000000, "requests": 120, "image": 1500000},
+ *     {"pattern": ".*",          "total": 4000000, "requests": 150, "script": 1000000}
+ *   ]
+ * Limits: "total" and "requests" plus bytes for any type in {@link #TYPES}.
+ * Without a file every page gets the default 4 MB / 150 request budget.
+ */
+import org.apache.poi.ss.usermodel.*;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.regex.Pattern;
+
+public class PageWeight {
+
+    static final List<String> TYPES = Arrays.asList(
+            "document", "script", "stylesheet", "font", "image", "media", "xhr", "other");
+
+    /** Bytes and requests for one page, per resource type. */
+    static class Weight {
+        final Map<String, Long> bytes = new LinkedHashMap<>();
+        final Map<String, Integer> requests = new LinkedHashMap<>();
+
+        Weight() {
+            for (String type : TYPES) {
+                bytes.put(type, 0L);
+                requests.put(type, 0);
+            }
+        }
+
+        long totalBytes() {
+            return bytes.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        int totalRequests() {
+            return requests.values().stream().mapToInt(Integer::intValue).sum();
+        }
+    }
+
+    /** Limits for the pages matching one URL pattern; missing limits are unchecked. */
+    static class Budget {
+        final Pattern pattern;
+        final Map<String, Long> limits;
+
+        Budget(String pattern, Map<String, Long> limits) {
+            this.pattern = Pattern.compile(pattern);
+            this.limits = limits;
+        }
+    }
+
+    private final List<Budget> budgets;
+
+    PageWeight(List<Budget> budgets) {
+        this.budgets = budgets;
+    }
+
+    /** Budgets from -Dweight.budgets, or a single 4 MB / 150 request budget for every page. */
+    static PageWeight loadBudgets() throws IOException {
+        String file = System.getProperty("weight.budgets");
+        List<Budget> budgets = new ArrayList<>();
+        if (file == null) {
+            Map<String, Long> limits = new LinkedHashMap<>();
+            limits.put("total", 4_000_000L);
+            limits.put("requests", 150L);
+            budgets.add(new Budget(".*", limits));
+            return new PageWeight(budgets);
+        }
+        JSONArray array = new JSONArray(new String(Files.readAllBytes(new File(file).toPath()), StandardCharsets.UTF_8));
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject entry = array.getJSONObject(i);
+            Map<String, Long> limits = new LinkedHashMap<>();
+            for (String key : entry.keySet()) {
+                if (!"pattern".equals(key)) {
+                    limits.put(key, entry.getLong(key));
+                }
+            }
+            budgets.add(new Budget(entry.getString("pattern"), limits));
+        }
+        return new PageWeight(budgets);
+    }
+
+    /* ─────────────────────── Measuring ─────────────────────── */
+
+    /**
+     * Adds up one page's DevTools events.
+     *
+     * @param events Performance‑log messages ({"method": …, "params": …}).
+     */
+    static Weight measure(List<JSONObject> events) {
+        Map<String, String> typeByRequest = new HashMap<>();
+        Weight weight = new Weight();
+        for (JSONObject event : events) {
+            String method = event.optString("method");
+            JSONObject params = event.optJSONObject("params");
+            if (params == null) {
+                continue;
+            }
+            String requestId = params.optString("requestId");
+            if ("Network.requestWillBeSent".equals(method) || "Network.responseReceived".equals(method)) {
+                if (params.has("type")) {
+                    typeByRequest.put(requestId, normalizeType(params.getString("type")));
+                }
+            } else if ("Network.loadingFinished".equals(method)) {
+                String type = typeByRequest.getOrDefault(requestId, "other");
+                weight.bytes.merge(type, params.optLong("encodedDataLength", 0), Long::sum);
+                weight.requests.merge(type, 1, Integer::sum);
+            }
+        }
+        return weight;
+    }
+
+    // DevTools resource types → report buckets
+    private static String normalizeType(String type) {
+        String lower = type.toLowerCase();
+        if ("fetch".equals(lower)) {
+            return "xhr";
+        }
+        return TYPES.contains(lower) ? lower : "other";
+    }
+
+    /* ─────────────────────── Budgets ─────────────────────── */
+
+    /** Budget of the first pattern found in the URL, or null when none applies. */
+    Budget budgetFor(String url) {
+        for (Budget budget : budgets) {
+            if (budget.pattern.matcher(url).find()) {
+                return budget;
+            }
+        }
+        return null;
+    }
+
+    /** Every exceeded limit as [metric, actual, limit]. */
+    List<Object[]> overBudget(String url, Weight weight) {
+        List<Object[]> exceeded = new ArrayList<>();
+        Budget budget = budgetFor(url);
+        if (budget == null) {
+            return exceeded;
+        }
+        for (Map.Entry<String, Long> limit : budget.limits.entrySet()) {
+            String metric = limit.getKey();
+            long actual = "total".equals(metric) ? weight.totalBytes()
+                    : "requests".equals(metric) ? weight.totalRequests()
+                    : weight.bytes.getOrDefault(metric, 0L);
+            if (actual > limit.getValue()) {
+                exceeded.add(new Object[]{metric, actual, limit.getValue()});
+            }
+        }
+        return exceeded;
+    }
+
+    /* ─────────────────────── Report ─────────────────────── */
+
+    /** Header row for the per‑page "Page Weight" sheet. */
+    static void writeWeightHeader(Sheet sheet) {
+        Row header = sheet.createRow(0);
+        header.createCell(0).setCellValue("Page URL");
+        header.createCell(1).setCellValue("Total KB");
+        header.createCell(2).setCellValue("Requests");
+        for (int i = 0; i < TYPES.size(); i++) {
+            header.createCell(3 + i).setCellValue(TYPES.get(i) + " KB");
+        }
+    }
+
+    static void writeWeightRow(Sheet sheet, String url, Weight weight) {
+        Row row = sheet.createRow(sheet.getLastRowNum() + 1);
+        row.createCell(0).setCellValue(url);
+        row.createCell(1).setCellValue(weight.totalBytes() / 1024);
+        row.createCell(2).setCellValue(weight.totalRequests());
+        for (int i = 0; i < TYPES.size(); i++) {
+            row.createCell(3 + i).setCellValue(weight.bytes.get(TYPES.get(i)) / 1024);
+        }
+    }
+
+    /** Header row for the "Over Budget" sheet. */
+    static void writeOverBudgetHeader(Sheet sheet) {
+        Row header = sheet.createRow(0);
+        header.createCell(0).setCellValue("Page URL");
+        header.createCell(1).setCellValue("Metric");
+        header.createCell(2).setCellValue("Actual");
+        header.createCell(3).setCellValue("Budget");
+        header.createCell(4).setCellValue("Over By %");
+    }
+
+    static void writeOverBudgetRow(Sheet sheet, String url, Object[] exceeded) {
+        long actual = (Long) exceeded[1];
+        long limit = (Long) exceeded[2];
+        Row row = sheet.createRow(sheet.getLastRowNum() + 1);
+        row.createCell(0).setCellValue(url);
+        row.createCell(1).setCellValue((String) exceeded[0]);
+        row.createCell(2).setCellValue(actual);
+        row.createCell(3).setCellValue(limit);
+        row.createCell(4).setCellValue(limit == 0 ? 100 : Math.round((actual - limit) * 100.0 / limit));
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ * PixelDiff.java
+ *
+ * Local pixel comparison engine used by VisualRegression.
+ *
+ * Both images are unpacked once into int[] ARGB buffers and compared in
+ * horizontal tiles on a ForkJoinPool, so a full‑page diff scales with the
+ * number of CPU cores.
+ *
+ * Per pixel:
+ *   • Channels (incl. alpha) within `tolerance` of each other count as equal
+ *   • Pixels inside an ignore region are skipped (dynamic widgets, banners…)
+ *   • Anti‑aliasing: a pixel only counts as different if no pixel within one
+ *     pixel of it in the other image matches – sub‑pixel text/edge shifts pass
+ *
+ * Areas that exist in only one of the images (page got taller/shorter) are
+ * always counted as different.
+ */
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class PixelDiff {
+
+    private static final int TILE_ROWS   = 64;
+    private static final int DIFF_COLOR  = 0xFFFF0000;  // opaque red
+    private static final int IGNORE_TINT = 0xFF7F7FFF;  // light blue
+
+    /** Outcome of a comparison; {@link #diffImage} is only built when pixels differ. */
+    public static class Result {
+        public final int width;
+        public final int height;
+        public final long diffPixels;
+        public final BufferedImage diffImage;
+
+        Result(int width, int height, long diffPixels, BufferedImage diffImage) {
+            this.width = width;
+            this.height = height;
+            this.diffPixels = diffPixels;
+            this.diffImage = diffImage;
+        }
+
+        /** Share of differing pixels, 0.0 – 1.0. */
+        public double diffRatio() {
+            long total = (long) width * height;
+            return total == 0 ? 0 : (double) diffPixels / total;
+        }
+    }
+
+    /**
+     * Compares two screenshots tile by tile on the common pool.
+     *
+     * @param baseline  Approved image.
+     * @param actual    Freshly captured image.
+     * @param ignore    Regions (in page pixels) to leave out of the comparison.
+     * @param tolerance Max per‑channel difference (0‑255) still treated as equal.
+     */
+    public static Result compare(BufferedImage baseline, BufferedImage actual,
+                                 List<Rectangle> ignore, int tolerance) {
+        int width  = Math.max(baseline.getWidth(), actual.getWidth());
+        int height = Math.max(baseline.getHeight(), actual.getHeight());
+
+        Frame expected = new Frame(baseline);
+        Frame current  = new Frame(actual);
+        int[] diff = new int[width * height];
+        boolean[] ignored = rasterize(ignore, width, height);
+
+        long diffPixels = ForkJoinPool.commonPool().invoke(
+                new TileTask(expected, current, diff, ignored, width, tolerance, 0, height));
+
+        BufferedImage diffImage = null;
+        if (diffPixels > 0) {
+            diffImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            diffImage.setRGB(0, 0, width, height, diff, 0, width);
+        }
+        return new Result(width, height, diffPixels, diffImage);
+    }
+
+    /** Flattens ignore rectangles into a per‑pixel mask, or null when there are none. */
+    private static boolean[] rasterize(List<Rectangle> regions, int width, int height) {
+        if (regions == null || regions.isEmpty()) {
+            return null;
+        }
+        boolean[] mask = new boolean[width * height];
+        for (Rectangle region : regions) {
+            Rectangle clipped = region.intersection(new Rectangle(0, 0, width, height));
+            for (int y = clipped.y; y < clipped.y + clipped.height; y++) {
+                int offset = y * width;
+                for (int x = clipped.x; x < clipped.x + clipped.width; x++) {
+                    mask[offset + x] = true;
+                }
+            }
+        }
+        return mask;
+    }
+
+    /** An image unpacked into a row‑major ARGB buffer. */
+    private static final class Frame {
+        final int width;
+        final int height;
+        final int[] argb;
+
+        Frame(BufferedImage image) {
+            width  = image.getWidth();
+            height = image.getHeight();
+            argb   = image.getRGB(0, 0, width, height, null, 0, width);
+        }
+
+        boolean contains(int x, int y) {
+            return x >= 0 && y >= 0 && x < width && y < height;
+        }
+
+        int at(int x, int y) {
+            return argb[y * width + x];
+        }
+    }
+
+    /** Compares a band of rows; splits until the band is at most {@link #TILE_ROWS} tall. */
+    private static final class TileTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Frame expected;
+        private final Frame actual;
+        private final int[] diff;
+        private final boolean[] ignored;
+        private final int width;
+        private final int tolerance;
+        private final int fromRow;
+        private final int toRow;
+
+        TileTask(Frame expected, Frame actual, int[] diff, boolean[] ignored,
+                 int width, int tolerance, int fromRow, int toRow) {
+            this.expected  = expected;
+            this.actual    = actual;
+            this.diff      = diff;
+            this.ignored   = ignored;
+            this.width     = width;
+            this.tolerance = tolerance;
+            this.fromRow   = fromRow;
+            this.toRow     = toRow;
+        }
+
+        @Override
+        protected Long compute() {
+            if (toRow - fromRow > TILE_ROWS) {
+                int mid = (fromRow + toRow) >>> 1;
+                TileTask top = new TileTask(expected, actual, diff, ignored, width, tolerance, fromRow, mid);
+                TileTask bottom = new TileTask(expected, actual, diff, ignored, width, tolerance, mid, toRow);
+                top.fork();
+                long bottomCount = bottom.compute();
+                return top.join() + bottomCount;
+            }
+
+            long count = 0;
+            for (int y = fromRow; y < toRow; y++) {
+                int offset = y * width;
+                for (int x = 0; x < width; x++) {
+                    int index = offset + x;
+                    if (ignored != null && ignored[index]) {
+                        diff[index] = IGNORE_TINT;
+                    } else if (!expected.contains(x, y) || !actual.contains(x, y)) {
+                        diff[index] = DIFF_COLOR;
+                        count++;
+                    } else if (isDifferent(x, y)) {
+                        diff[index] = DIFF_COLOR;
+                        count++;
+                    } else {
+                        diff[index] = faded(actual.at(x, y));
+                    }
+                }
+            }
+            return count;
+        }
+
+        private boolean isDifferent(int x, int y) {
+            int a = expected.at(x, y);
+            int b = actual.at(x, y);
+            if (a == b || similar(a, b, tolerance)) {
+                return false;
+            }
+            // Treat as anti‑aliasing when each pixel has a close match next to it in the other image
+            return !hasNeighbourMatch(actual, x, y, a) || !hasNeighbourMatch(expected, x, y, b);
+        }
+
+        private boolean hasNeighbourMatch(Frame frame, int x, int y, int color) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    if ((dx != 0 || dy != 0) && frame.contains(x + dx, y + dy)
+                            && similar(frame.at(x + dx, y + dy), color, tolerance)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    private static boolean similar(int a, int b, int tolerance) {
+        for (int shift = 0; shift <= 24; shift += 8) {
+            if (Math.abs(((a >>> shift) & 0xFF) - ((b >>> shift) & 0xFF)) > tolerance) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Unchanged pixels are drawn as a washed‑out grey so the red diff stands out
+    private static int faded(int argb) {
+        int r = (argb >>> 16) & 0xFF, g = (argb >>> 8) & 0xFF, b = argb & 0xFF;
+        int grey = (r * 30 + g * 59 + b * 11) / 100;
+        int light = 255 - (255 - grey) / 4;
+        return 0xFF000000 | (light << 16) | (light << 8) | light;
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * ResponsiveCapture.java
+ *
+ * Captures a page at several breakpoints from a single page load.
+ *
+ * The URL is loaded once; each breakpoint is then applied with the DevTools
+ * command Emulation.setDeviceMetricsOverride (width, height, device pixel
+ * ratio, mobile flag), so the page re‑lays out in place instead of being
+ * reloaded or opened in another browser. Five breakpoints cost roughly one
+ * page load plus five captures.
+ *
+ * Per breakpoint it records:
+ *   • A full‑page PNG screenshot
+ *   • Layout metrics – document width/height and horizontal overflow
+ *   • Rectangles of elements that should be ignored when diffing
+ *
+ * Note: only metrics are emulated, not the user agent – sites that serve a
+ * different template by UA sniffing still need a separate session.
+ */
+import org.openqa.selenium.chrome.ChromeDriver;
+
+import java.awt.Rectangle;
+import java.util.*;
+
+public class ResponsiveCapture {
+
+    /** A device size to emulate. */
+    static class Breakpoint {
+        final String name;
+        final int width;
+        final int height;
+        final double deviceScaleFactor;
+        final boolean mobile;
+
+        Breakpoint(String name, int width, int height, double deviceScaleFactor, boolean mobile) {
+            this.name = name;
+            this.width = width;
+            this.height = height;
+            this.deviceScaleFactor = deviceScaleFactor;
+            this.mobile = mobile;
+        }
+    }
+
+    /** Screenshot and layout of the page at one breakpoint. */
+    static class Capture {
+        final Breakpoint breakpoint;
+        final byte[] png;
+        final int documentWidth;
+        final int documentHeight;
+        final int overflowingElements;   // elements sticking out past the viewport's right edge
+        final List<Rectangle> ignoreRegions;
+
+        Capture(Breakpoint breakpoint, byte[] png, int documentWidth, int documentHeight,
+                int overflowingElements, List<Rectangle> ignoreRegions) {
+            this.breakpoint = breakpoint;
+            this.png = png;
+            this.documentWidth = documentWidth;
+            this.documentHeight = documentHeight;
+            this.overflowingElements = overflowingElements;
+            this.ignoreRegions = ignoreRegions;
+        }
+
+        boolean hasHorizontalOverflow() {
+            return documentWidth > breakpoint.width;
+        }
+    }
+
+    // Resolves once two frames have been painted and visible images finished (max 3 s)
+    private static final String SETTLE_SCRIPT =
+            "var done = arguments[arguments.length - 1];" +
+            "var deadline = Date.now() + 3000;" +
+            "function check() {" +
+            "  var pending = Array.prototype.some.call(document.images, function (img) { return !img.complete; });" +
+            "  if (!pending || Date.now() > deadline) done(); else setTimeout(check, 100);" +
+            "}" +
+            "requestAnimationFrame(function () { requestAnimationFrame(check); });";
+
+    private static final String LAYOUT_SCRIPT =
+            "var doc = document.documentElement, vw = doc.clientWidth, overflow = 0;" +
+            "document.querySelectorAll('body *').forEach(function (el) {" +
+            "  var r = el.getBoundingClientRect();" +
+            "  if (r.width > 0 && r.right > vw + 1) overflow++;" +
+            "});" +
+            "var ignore = [];" +
+            "arguments[0].forEach(function (sel) {" +
+            "  document.querySelectorAll(sel).forEach(function (el) {" +
+            "    var r = el.getBoundingClientRect();" +
+            "    if (r.width > 0 && r.height > 0) ignore.push([r.left + scrollX, r.top + scrollY, r.width, r.height]);" +
+            "  });" +
+            "});" +
+            "return [doc.scrollWidth, doc.scrollHeight, overflow, ignore];";
+
+    /**
+     * Loads {@code pageUrl} once and captures it at every breakpoint.
+     *
+     * @param ignoreSelectors CSS selectors whose boxes are returned as ignore regions.
+     */
+    static List<Capture> captureAll(ChromeDriver driver, String pageUrl,
+                                    List<Breakpoint> breakpoints, List<String> ignoreSelectors) {
+        List<Capture> captures = new ArrayList<>();
+        try {
+            // Load at the first breakpoint so above‑the‑fold lazy content matches it
+            applyBreakpoint(driver, breakpoints.get(0));
+            driver.get(pageUrl);
+            for (Breakpoint breakpoint : breakpoints) {
+                applyBreakpoint(driver, breakpoint);
+                driver.executeAsyncScript(SETTLE_SCRIPT);
+                captures.add(capture(driver, breakpoint, ignoreSelectors));
+            }
+        } finally {
+            try {
+                driver.executeCdpCommand("Emulation.clearDeviceMetricsOverride", new HashMap<>());
+            } catch (Exception e) {
+                // Dead session – don't let this hide the capture failure that got us here
+                System.out.println("⚠️ Could not reset device metrics: " + e.getMessage());
+            }
+        }
+        return captures;
+    }
+
+    static void applyBreakpoint(ChromeDriver driver, Breakpoint breakpoint) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("width", breakpoint.width);
+        params.put("height", breakpoint.height);
+        params.put("deviceScaleFactor", breakpoint.deviceScaleFactor);
+        params.put("mobile", breakpoint.mobile);
+        driver.executeCdpCommand("Emulation.setDeviceMetricsOverride", params);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Capture capture(ChromeDriver driver, Breakpoint breakpoint, List<String> ignoreSelectors) {
+        List<Object> layout = (List<Object>) driver.executeScript(LAYOUT_SCRIPT, ignoreSelectors);
+        // Screenshots are in device pixels, the script reports CSS pixels
+        double scale = breakpoint.deviceScaleFactor;
+        List<Rectangle> ignore = new ArrayList<>();
+        for (List<Number> r : (List<List<Number>>) layout.get(3)) {
+            ignore.add(new Rectangle((int) (r.get(0).doubleValue() * scale), (int) (r.get(1).doubleValue() * scale),
+                    (int) Math.ceil(r.get(2).doubleValue() * scale), (int) Math.ceil(r.get(3).doubleValue() * scale)));
+        }
+        return new Capture(breakpoint, captureFullPage(driver),
+                ((Number) layout.get(0)).intValue(),
+                ((Number) layout.get(1)).intValue(),
+                ((Number) layout.get(2)).intValue(),
+                ignore);
+    }
+
+    /** Captures the whole document, not just the viewport, via the DevTools protocol. */
+    static byte[] captureFullPage(ChromeDriver driver) {
+        Map<String, Object> metrics = driver.executeCdpCommand("Page.getLayoutMetrics", new HashMap<>());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> content = (Map<String, Object>) metrics.get("cssContentSize");
+
+        Map<String, Object> clip = new HashMap<>();
+        clip.put("x", 0);
+        clip.put("y", 0);
+        clip.put("width", ((Number) content.get("width")).doubleValue());
+        clip.put("height", ((Number) content.get("height")).doubleValue());
+        clip.put("scale", 1);
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("format", "png");
+        params.put("captureBeyondViewport", true);
+        params.put("clip", clip);
+        Map<String, Object> shot = driver.executeCdpCommand("Page.captureScreenshot", params);
+        return Base64.getDecoder().decode((String) shot.get("data"));
+    }
+}
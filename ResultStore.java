@@ -0,0 +1,343 @@
+/**
+ * ResultStore.java
+ *
+ * Embedded, append‑only history of every finding the audit tools produce, so
+ * "what is new since last week" is a query instead of a spreadsheet diff.
+ *
+ * Layout (default: <project>/results, or -Dresults.dir)
+ *   • findings.log – append‑only, one TSV line per finding:
+ *                    fingerprint, URL, category, message
+ *                    Each run's findings are written as one contiguous block.
+ *   • runs.idx     – one line per run: run id, tool, start time, byte offset
+ *                    and length of its block in findings.log, finding count
+ *
+ * A finding's fingerprint is a hash of tool | URL | category | normalised
+ * message (lower‑case, digits collapsed), so cache‑busting query strings,
+ * line numbers and timestamps do not turn one issue into a "new" one.
+ *
+ * Diffing two runs reads exactly their two blocks via the index, so it costs
+ * time proportional to their findings, not to the number of pages crawled
+ * or the size of the history.
+ *
+ * Usage
+ *   java ResultStore runs [tool]                 – list recorded runs
+ *   java ResultStore diff <runA> <runB>          – new / fixed / persisting
+ *   java ResultStore weekly <tool> [days]        – Weekly_Report_<tool>_<date>.xlsx,
+ *                                                  latest run vs. the one ≥ days (7) older
+ */
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+public class ResultStore {
+
+    /** One issue found on one page. */
+    static class Finding {
+        final String url;
+        final String category;
+        final String message;
+
+        Finding(String url, String category, String message) {
+            this.url = url;
+            this.category = category;
+            this.message = message;
+        }
+    }
+
+    /** One entry of runs.idx. */
+    static class RunInfo {
+        final String runId;
+        final String tool;
+        final long startedAt;
+        final long offset;
+        final long length;
+        final int count;
+
+        RunInfo(String runId, String tool, long startedAt, long offset, long length, int count) {
+            this.runId = runId;
+            this.tool = tool;
+            this.startedAt = startedAt;
+            this.offset = offset;
+            this.length = length;
+            this.count = count;
+        }
+    }
+
+    /** Findings of run B compared with run A, each keyed by fingerprint. */
+    static class Diff {
+        final RunInfo from;
+        final RunInfo to;
+        final List<Finding> added = new ArrayList<>();
+        final List<Finding> fixed = new ArrayList<>();
+        final List<Finding> persisting = new ArrayList<>();
+
+        Diff(RunInfo from, RunInfo to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    private final Path log;
+    private final Path index;
+
+    public ResultStore(Path root) throws IOException {
+        Files.createDirectories(root);
+        this.log = root.resolve("findings.log");
+        this.index = root.resolve("runs.idx");
+    }
+
+    /** Store under -Dresults.dir, else <project>/results, shared by all tools. */
+    public static ResultStore openDefault() throws IOException {
+        String dir = System.getProperty("results.dir");
+        return new ResultStore(dir != null ? Paths.get(dir) : Paths.get(System.getProperty("user.dir"), "results"));
+    }
+
+    /* ─────────────────────── Writing ─────────────────────── */
+
+    /**
+     * Appends one complete run. The findings block is flushed to disk before
+     * its index line is written, so a crash can orphan bytes but never leaves
+     * an index entry pointing at a partial block.
+     */
+    public RunInfo append(String tool, List<Finding> findings) throws IOException {
+        String runId = tool + "-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        StringBuilder block = new StringBuilder();
+        for (Finding f : findings) {
+            block.append(fingerprint(tool, f)).append('\t')
+                    .append(escape(f.url)).append('\t')
+                    .append(escape(f.category)).append('\t')
+                    .append(escape(f.message)).append('\n');
+        }
+        byte[] bytes = block.toString().getBytes(StandardCharsets.UTF_8);
+
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock();
+            try {
+                long offset = channel.size();
+                channel.position(offset);
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+
+                RunInfo run = new RunInfo(runId, tool, System.currentTimeMillis(), offset, bytes.length, findings.size());
+                String line = String.join("\t", run.runId, run.tool, String.valueOf(run.startedAt),
+                        String.valueOf(run.offset), String.valueOf(run.length), String.valueOf(run.count)) + "\n";
+                Files.write(index, line.getBytes(StandardCharsets.UTF_8),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                return run;
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * Records a finished run and prints how it compares with the previous run
+     * of the same tool. Never throws – history is a by‑product of the audit.
+     */
+    public static void recordRun(String tool, List<Finding> findings) {
+        try {
+            ResultStore store = openDefault();
+            List<RunInfo> previous = store.runs(tool);
+            RunInfo run = store.append(tool, findings);
+            System.out.println("🗄️ Stored " + findings.size() + " findings as run " + run.runId);
+            if (!previous.isEmpty()) {
+                Diff diff = store.diff(previous.get(previous.size() - 1), run);
+                System.out.println("📊 Since " + diff.from.runId + ": " + diff.added.size() + " new, "
+                        + diff.fixed.size() + " fixed, " + diff.persisting.size() + " persisting");
+            }
+        } catch (IOException e) {
+            System.out.println("⚠️ Could not store results: " + e.getMessage());
+        }
+    }
+
+    /* ─────────────────────── Reading ─────────────────────── */
+
+    /** All runs in recording order, optionally only those of one tool. */
+    public List<RunInfo> runs(String tool) throws IOException {
+        List<RunInfo> runs = new ArrayList<>();
+        if (!Files.exists(index)) {
+            return runs;
+        }
+        for (String line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+            String[] p = line.split("\t");
+            if (p.length == 6 && (tool == null || tool.equals(p[1]))) {
+                runs.add(new RunInfo(p[0], p[1], Long.parseLong(p[2]),
+                        Long.parseLong(p[3]), Long.parseLong(p[4]), Integer.parseInt(p[5])));
+            }
+        }
+        return runs;
+    }
+
+    public RunInfo run(String runId) throws IOException {
+        for (RunInfo run : runs(null)) {
+            if (run.runId.equals(runId)) {
+                return run;
+            }
+        }
+        throw new IllegalArgumentException("Unknown run: " + runId);
+    }
+
+    /** A run's findings keyed by fingerprint, read straight from its block. */
+    public Map<String, Finding> findings(RunInfo run) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) run.length);
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer, run.offset + buffer.position()) > 0) {
+                // keep reading until the whole block is in
+            }
+        }
+        Map<String, Finding> findings = new LinkedHashMap<>();
+        for (String line : new String(buffer.array(), StandardCharsets.UTF_8).split("\n")) {
+            String[] p = line.split("\t", -1);
+            if (p.length == 4) {
+                findings.putIfAbsent(p[0], new Finding(unescape(p[1]), unescape(p[2]), unescape(p[3])));
+            }
+        }
+        return findings;
+    }
+
+    public Diff diff(RunInfo from, RunInfo to) throws IOException {
+        Map<String, Finding> before = findings(from);
+        Map<String, Finding> after = findings(to);
+        Diff diff = new Diff(from, to);
+        for (Map.Entry<String, Finding> e : after.entrySet()) {
+            (before.containsKey(e.getKey()) ? diff.persisting : diff.added).add(e.getValue());
+        }
+        for (Map.Entry<String, Finding> e : before.entrySet()) {
+            if (!after.containsKey(e.getKey())) {
+                diff.fixed.add(e.getValue());
+            }
+        }
+        return diff;
+    }
+
+    /* ─────────────────────── Fingerprints ─────────────────────── */
+
+    static String fingerprint(String tool, Finding f) {
+        String key = tool + "|" + f.url + "|" + f.category + "|" + normalize(f.message);
+        return ScreenshotStore.hash(key.getBytes(StandardCharsets.UTF_8)).substring(0, 20);
+    }
+
+    /** Lower‑case, digit runs collapsed, single‑spaced – stable across reruns. */
+    static String normalize(String message) {
+        return message.toLowerCase().replaceAll("\\d+", "#").replaceAll("\\s+", " ").trim();
+    }
+
+    private static String escape(String value) {
+        return value == null ? "" : value.replace("\\", "\\\\").replace("\t", "\\t")
+                .replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                out.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    /* ─────────────────────── Commands ─────────────────────── */
+
+    public static void main(String[] args) throws Exception {
+        ResultStore store = openDefault();
+        String command = args.length == 0 ? "runs" : args[0];
+
+        if ("runs".equals(command)) {
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+            for (RunInfo run : store.runs(args.length > 1 ? args[1] : null)) {
+                System.out.printf("%-28s %-10s %s %6d findings%n",
+                        run.runId, run.tool, format.format(new Date(run.startedAt)), run.count);
+            }
+        } else if ("diff".equals(command) && args.length == 3) {
+            Diff diff = store.diff(store.run(args[1]), store.run(args[2]));
+            print("🆕 New", diff.added);
+            print("✅ Fixed", diff.fixed);
+            System.out.println("➖ Persisting: " + diff.persisting.size());
+        } else if ("weekly".equals(command) && args.length >= 2) {
+            int days = args.length > 2 ? Integer.parseInt(args[2]) : 7;
+            List<RunInfo> runs = store.runs(args[1]);
+            if (runs.size() < 2) {
+                System.out.println("⚠️ Need at least two " + args[1] + " runs for a weekly report");
+                return;
+            }
+            RunInfo latest = runs.get(runs.size() - 1);
+            RunInfo baseline = runs.get(0);
+            long cutoff = latest.startedAt - TimeUnit.DAYS.toMillis(days);
+            for (RunInfo run : runs) {
+                if (run.startedAt <= cutoff) {
+                    baseline = run;
+                }
+            }
+            String fileName = "Weekly_Report_" + args[1] + "_"
+                    + new SimpleDateFormat("yyyy-MM-dd").format(new Date(latest.startedAt)) + ".xlsx";
+            saveWeeklyReport(store.diff(baseline, latest), fileName);
+        } else {
+            System.out.println("❌ Usage: java ResultStore runs [tool] | diff <runA> <runB> | weekly <tool> [days]");
+        }
+    }
+
+    private static void print(String label, List<Finding> findings) {
+        System.out.println(label + ": " + findings.size());
+        for (Finding f : findings) {
+            System.out.println("   " + f.url + " [" + f.category + "] " + f.message);
+        }
+    }
+
+    static void saveWeeklyReport(Diff diff, String fileName) {
+        try (Workbook workbook = new XSSFWorkbook();
+             FileOutputStream out = new FileOutputStream(fileName)) {
+            Sheet summary = workbook.createSheet("Summary");
+            String[][] values = {
+                    {"Tool", diff.to.tool},
+                    {"From run", diff.from.runId},
+                    {"To run", diff.to.runId},
+                    {"New", String.valueOf(diff.added.size())},
+                    {"Fixed", String.valueOf(diff.fixed.size())},
+                    {"Persisting", String.valueOf(diff.persisting.size())}
+            };
+            for (int i = 0; i < values.length; i++) {
+                Row row = summary.createRow(i);
+                row.createCell(0).setCellValue(values[i][0]);
+                row.createCell(1).setCellValue(values[i][1]);
+            }
+            writeSheet(workbook.createSheet("New"), diff.added);
+            writeSheet(workbook.createSheet("Fixed"), diff.fixed);
+            writeSheet(workbook.createSheet("Persisting"), diff.persisting);
+            workbook.write(out);
+            System.out.println("✅ Weekly report saved at: " + fileName);
+        } catch (Exception e) {
+            System.out.println("❌ Error saving weekly report: " + e.getMessage());
+        }
+    }
+
+    private static void writeSheet(Sheet sheet, List<Finding> findings) {
+        Row header = sheet.createRow(0);
+        header.createCell(0).setCellValue("Page URL");
+        header.createCell(1).setCellValue("Category");
+        header.createCell(2).setCellValue("Message");
+        int rowNum = 1;
+        for (Finding f : findings) {
+            Row row = sheet.createRow(rowNum++);
+            row.createCell(0).setCellValue(f.url);
+            row.createCell(1).setCellValue(f.category);
+            row.createCell(2).setCellValue(f.message);
+        }
+    }
+}
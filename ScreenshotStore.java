@@ -0,0 +1,215 @@
+/**
+ * ScreenshotStore.java
+ *
+ * Content‑addressed, de‑duplicated store for screenshots and visual baselines.
+ *
+ * Each PNG is saved once under its SHA‑256 hash; repeated captures of an
+ * unchanged page cost one hash and one index line, not another image file.
+ *
+ * Layout (default: <project>/screenshots)
+ *   • objects/ab/abcdef….png – image bytes, named by content hash
+ *   • index.tsv              – append‑only: run, URL, viewport/label, hash, tool
+ *   • baselines.tsv          – current approved hash per URL + viewport
+ *
+ * Chrome encodes identical pixels to identical PNG bytes, so "page unchanged
+ * since the baseline" is a single string comparison of two hashes.
+ * {@link #gc(int)} drops index entries of the opening tool's old runs and
+ * deletes any image no remaining run (of any tool) or baseline refers to.
+ * Index lines written before the tool column count as VisualRegression's.
+ */
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+public class ScreenshotStore {
+
+    static final String LEGACY_TOOL = "visual-regression";
+
+    private final Path root;
+    private final String tool;
+    private final Path objects;
+    private final Path index;
+    private final Path baselinesFile;
+    private final Map<String, String> baselines = new LinkedHashMap<>();
+
+    /**
+     * @param tool Name recorded with every capture; {@link #gc(int)} only ages out this tool's runs.
+     */
+    public ScreenshotStore(Path root, String tool) throws IOException {
+        this.root = root;
+        this.tool = tool;
+        this.objects = root.resolve("objects");
+        this.index = root.resolve("index.tsv");
+        this.baselinesFile = root.resolve("baselines.tsv");
+        Files.createDirectories(objects);
+        if (Files.exists(baselinesFile)) {
+            for (String line : Files.readAllLines(baselinesFile, StandardCharsets.UTF_8)) {
+                String[] parts = line.split("\t");
+                if (parts.length == 3) {
+                    baselines.put(key(parts[0], parts[1]), parts[2]);
+                }
+            }
+        }
+    }
+
+    /** Store under <project>/screenshots, shared by all tools. */
+    public static ScreenshotStore openDefault(String tool) throws IOException {
+        return new ScreenshotStore(Paths.get(System.getProperty("user.dir"), "screenshots"), tool);
+    }
+
+    /** Run identifier in the same format the tools already use for file names. */
+    public static String newRunId() {
+        return new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+    }
+
+    /* ─────────────────────── Objects ─────────────────────── */
+
+    /** Saves the image if its content is not stored yet and returns its hash. */
+    public String put(byte[] png) throws IOException {
+        String hash = hash(png);
+        Path target = objectPath(hash);
+        if (!Files.exists(target)) {
+            Files.createDirectories(target.getParent());
+            // Write aside and move so a crash never leaves a truncated object behind
+            Path temp = Files.createTempFile(target.getParent(), hash, ".tmp");
+            Files.write(temp, png);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                Files.deleteIfExists(temp);  // another thread stored the same image first
+            }
+        }
+        return hash;
+    }
+
+    /** Stores the image and records it in the index under (run, URL, viewport). */
+    public String record(String run, String url, String viewport, byte[] png) throws IOException {
+        String hash = put(png);
+        String line = String.join("\t", run, url, viewport, hash, tool) + System.lineSeparator();
+        synchronized (this) {
+            Files.write(index, line.getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        return hash;
+    }
+
+    public Path objectPath(String hash) {
+        return objects.resolve(hash.substring(0, 2)).resolve(hash + ".png");
+    }
+
+    public byte[] read(String hash) throws IOException {
+        return Files.readAllBytes(objectPath(hash));
+    }
+
+    /* ─────────────────────── Baselines ─────────────────────── */
+
+    /** Hash of the approved image for this URL + viewport, or null if none yet. */
+    public synchronized String baseline(String url, String viewport) {
+        return baselines.get(key(url, viewport));
+    }
+
+    /** True when the capture is byte‑identical to the current baseline. */
+    public boolean matchesBaseline(String url, String viewport, String hash) {
+        return hash.equals(baseline(url, viewport));
+    }
+
+    public synchronized void setBaseline(String url, String viewport, String hash) throws IOException {
+        baselines.put(key(url, viewport), hash);
+        saveBaselines();
+    }
+
+    private void saveBaselines() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, String> entry : baselines.entrySet()) {
+            lines.add(entry.getKey() + "\t" + entry.getValue());
+        }
+        Path temp = root.resolve("baselines.tsv.tmp");
+        Files.write(temp, lines, StandardCharsets.UTF_8);
+        Files.move(temp, baselinesFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /* ─────────────────────── Garbage collection ─────────────────────── */
+
+    /**
+     * Keeps the index entries of this tool's newest {@code keepRuns} runs (and
+     * every entry of other tools) and deletes every image that neither the
+     * kept entries nor a baseline reference.
+     *
+     * @return Number of image files removed.
+     */
+    public synchronized int gc(int keepRuns) throws IOException {
+        List<String> lines = Files.exists(index)
+                ? Files.readAllLines(index, StandardCharsets.UTF_8) : new ArrayList<>();
+
+        // This tool's runs in order of first appearance; the index is append‑only so that is chronological
+        LinkedHashSet<String> runs = new LinkedHashSet<>();
+        for (String line : lines) {
+            String[] parts = line.split("\t");
+            if (tool.equals(toolOf(parts))) {
+                runs.add(parts[0]);
+            }
+        }
+        Set<String> keptRuns = new HashSet<>(new ArrayList<>(runs)
+                .subList(Math.max(0, runs.size() - keepRuns), runs.size()));
+
+        List<String> keptLines = new ArrayList<>();
+        Set<String> live = new HashSet<>(baselines.values());
+        for (String line : lines) {
+            String[] parts = line.split("\t");
+            if (parts.length >= 4 && (!tool.equals(toolOf(parts)) || keptRuns.contains(parts[0]))) {
+                keptLines.add(line);
+                live.add(parts[3]);
+            }
+        }
+        if (keptLines.size() != lines.size()) {
+            Path temp = root.resolve("index.tsv.tmp");
+            Files.write(temp, keptLines, StandardCharsets.UTF_8);
+            Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        int removed = 0;
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(objects)) {
+            for (Path shard : shards) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(shard, "*.png")) {
+                    for (Path file : files) {
+                        String hash = file.getFileName().toString().replace(".png", "");
+                        if (!live.contains(hash)) {
+                            Files.delete(file);
+                            removed++;
+                        }
+                    }
+                }
+            }
+        }
+        System.out.println("🧹 Screenshot store: kept " + keptRuns.size() + " " + tool + " runs, removed "
+                + removed + " images");
+        return removed;
+    }
+
+    /* ─────────────────────── Helpers ─────────────────────── */
+
+    private static String toolOf(String[] indexLine) {
+        return indexLine.length >= 5 ? indexLine[4] : LEGACY_TOOL;
+    }
+
+    private static String key(String url, String viewport) {
+        return url + "\t" + viewport;
+    }
+
+    static String hash(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,19 +1,15 @@
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.w3c.dom.Document;
-import org.w3c.dom.NodeList;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.FileOutputStream;
-import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.*;
 
 public class Sitemap404Checker {
-    public static void main(String[] args) {
-        List<String> sitemapUrls = Arrays.asList(
+    public static void main(String[] args) throws InterruptedException {
+        // Sitemaps given on the command line replace the built-in list
+        List<String> sitemapUrls = args.length > 0 ? Arrays.asList(args) : Arrays.asList(
 //                "https://bdfgraphics.addwebprojects.com/product-sitemap3.xml",
 //                "https://bdfgraphics.addwebprojects.com/product-sitemap4.xml",
 //                "https://bdfgraphics.addwebprojects.com/product-sitemap5.xml",
@@ -35,9 +31,9 @@ public class Sitemap404Checker {
             return;
         }
 
-        // Excel Setup
+        // Excel Setup – streamed to disk, only the last 500 rows stay in memory
         String excelFilePath = System.getProperty("user.dir") + "/Full_URL_Status_Report.xlsx";
-        Workbook workbook = new XSSFWorkbook();
+        SXSSFWorkbook workbook = new SXSSFWorkbook(500);
         Sheet sheet = workbook.createSheet("URL Status");
 
         // Header Row
@@ -46,28 +42,30 @@ public class Sitemap404Checker {
         headerRow.createCell(1).setCellValue("Page URL");
         headerRow.createCell(2).setCellValue("HTTP Status");
 
-        int rowNum = 1;
-
-        for (String sitemapUrl : sitemapUrls) {
-            System.out.println("🔍 Parsing sitemap: " + sitemapUrl);
-            List<String> pageUrls = extractUrlsFromSitemap(sitemapUrl);
-            for (String pageUrl : pageUrls) {
-                int status = getHttpStatusCode(pageUrl);
-
-                // Write to Excel
-                Row row = sheet.createRow(rowNum++);
-                row.createCell(0).setCellValue(sitemapUrl);
-                row.createCell(1).setCellValue(pageUrl);
-                row.createCell(2).setCellValue(status);
-
-                // Console feedback
-                if (status == 404) {
-                    System.out.println("❌ 404 Not Found: " + pageUrl);
-                } else {
-                    System.out.println("✅ " + status + ": " + pageUrl);
-                }
-            }
-        }
+        int[] rowNum = {1};
+
+        // Sitemaps are read, checked and written as a stream: statuses appear while discovery
+        // is still running (-Dpipeline.fetch threads, 8 by default)
+        CrawlPipeline<Integer, CrawlPipeline.Page<Integer>> pipeline = new CrawlPipeline<>(8,
+                Sitemap404Checker::getHttpStatusCode,
+                Collections::singletonList,
+                page -> {
+                    int status = page.content == null ? -1 : page.content;
+
+                    // Write to Excel
+                    Row row = sheet.createRow(rowNum[0]++);
+                    row.createCell(0).setCellValue(page.sitemap);
+                    row.createCell(1).setCellValue(page.url);
+                    row.createCell(2).setCellValue(status);
+
+                    // Console feedback
+                    if (status == 404) {
+                        System.out.println("❌ 404 Not Found: " + page.url);
+                    } else {
+                        System.out.println("✅ " + status + ": " + page.url);
+                    }
+                });
+        pipeline.run(sitemapUrls);
 
         // Save Excel
         try (FileOutputStream fileOut = new FileOutputStream(excelFilePath)) {
@@ -79,41 +77,18 @@ public class Sitemap404Checker {
 
         try {
             workbook.close();
+            workbook.dispose();   // remove the temp files backing the streamed rows
         } catch (Exception e) {
             System.out.println("❌ Error closing workbook: " + e.getMessage());
         }
     }
 
-    // Extract URLs from sitemap
-    public static List<String> extractUrlsFromSitemap(String sitemapUrl) {
-        List<String> urls = new ArrayList<>();
-        try {
-            URL url = new URL(sitemapUrl);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            InputStream inputStream = connection.getInputStream();
-
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document doc = builder.parse(inputStream);
-            inputStream.close();
-
-            NodeList locNodes = doc.getElementsByTagName("loc");
-            for (int i = 0; i < locNodes.getLength(); i++) {
-                String loc = locNodes.item(i).getTextContent().trim();
-                urls.add(loc);
-            }
-        } catch (Exception e) {
-            System.out.println("❌ Failed to parse sitemap: " + sitemapUrl + " - " + e.getMessage());
-        }
-        return urls;
-    }
-
     // Get HTTP status of a URL
     public static int getHttpStatusCode(String urlStr) {
+        HttpURLConnection conn = null;
         try {
             URL url = new URL(urlStr);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+            conn = (HttpURLConnection) url.openConnection();
             conn.setRequestMethod("GET");
             conn.setConnectTimeout(10000);
             conn.setReadTimeout(10000);
@@ -122,6 +97,10 @@ public class Sitemap404Checker {
         } catch (Exception e) {
             System.out.println("❌ Error fetching status for URL: " + urlStr + " - " + e.getMessage());
             return -1;
+        } finally {
+            if (conn != null) {
+                conn.disconnect();   // called from many pipeline threads; don't leave sockets to the GC
+            }
         }
     }
 }
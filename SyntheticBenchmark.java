@@ -0,0 +1,224 @@
+/**
+ * SyntheticBenchmark.java
+ *
+ * End‑to‑end throughput baseline: starts {@link SyntheticSite} on a free
+ * port, runs each audit tool in‑process against its sitemaps and records
+ *   • wall time and units / second – a unit is a distinct site page the
+ *     crawler requested (counted by the site, so skipped or sampled pages
+ *     do not inflate it) and a sent submission for ContactFormLoadTest
+ *     (against the CF7 stand‑in the site serves at /contact-us/)
+ *   • peak JVM heap while the tool ran (sampled every 20 ms after a GC;
+ *     Chrome's own memory is not included)
+ *
+ * Every tool runs with user.dir pointed at benchmark-output/<tool>/, so its
+ * reports, evidence and candidate lists land there; the result history goes
+ * to benchmark-output/results. Nothing in the project's real reports is
+ * overwritten. Output: SyntheticBenchmark.xlsx for this run, plus one line
+ * per tool appended to benchmark-history.tsv so runs can be compared over time.
+ *
+ * Usage
+ *   java SyntheticBenchmark                            – every tool
+ *   java SyntheticBenchmark Sitemap404Checker CSPChecker – only the named tools
+ * The site.* properties of SyntheticSite size the site and its latency;
+ * load.stages defaults to 5x10s,20x10s here to keep the load test short.
+ */
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SyntheticBenchmark {
+
+    /** A tool run against the site; returns how many units (pages, submissions) it processed. */
+    interface Tool {
+        long run(SyntheticSite site) throws Exception;
+    }
+
+    /** A crawler's main(), given every sitemap of the site. */
+    interface Crawler {
+        void main(String[] sitemaps) throws Exception;
+    }
+
+    /** Measurements for one tool. */
+    static class Result {
+        final String tool;
+        long units;
+        double seconds;
+        long peakHeapBytes;
+        String status = "OK";
+
+        Result(String tool) {
+            this.tool = tool;
+        }
+
+        double unitsPerSecond() {
+            return seconds == 0 ? 0 : units / seconds;
+        }
+    }
+
+    private static final Map<String, Tool> TOOLS = new LinkedHashMap<>();
+    static {
+        TOOLS.put("Sitemap404Checker", crawl(Sitemap404Checker::main));
+        TOOLS.put("FontPrescan", crawl(FontPrescan::main));
+        TOOLS.put("CSPChecker", crawl(sitemaps -> {
+            // main() schedules itself every 40 h, so run one pass directly
+            CSPChecker.setupDriver();
+            try {
+                CSPChecker.runCSPCheck(Arrays.asList(sitemaps));
+            } finally {
+                CSPChecker.driver.quit();
+            }
+        }));
+        TOOLS.put("ConsoleErrorLogger", crawl(ConsoleErrorLogger::main));
+        TOOLS.put("FontVerification", crawl(FontVerification::main));
+        TOOLS.put("FontsAudit", crawl(FontsAudit::main));
+        TOOLS.put("ContactFormLoadTest", site -> {
+            Path payloads = Paths.get(System.getProperty("user.dir"), "payloads.csv");
+            Files.write(payloads, Arrays.asList("your-name,email,message",
+                    "Synthetic Visitor,visitor@example.com,Benchmark message"), StandardCharsets.UTF_8);
+            long sent = 0;
+            for (ContactFormLoadTest.StageStats stage
+                    : ContactFormLoadTest.run(site.baseUrl() + "/contact-us/", payloads.toFile())) {
+                sent += stage.sent.get();
+            }
+            return sent;
+        });
+    }
+
+    private static Tool crawl(Crawler crawler) {
+        return site -> {
+            site.resetRequestedPages();
+            crawler.main(site.sitemapUrls().toArray(new String[0]));
+            return site.requestedPages();
+        };
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> selected = args.length > 0 ? Arrays.asList(args) : new ArrayList<>(TOOLS.keySet());
+        for (String name : selected) {
+            if (!TOOLS.containsKey(name)) {
+                System.out.println("❌ Unknown tool: " + name + " (known: " + TOOLS.keySet() + ")");
+                return;
+            }
+        }
+        Path projectDir = Paths.get(System.getProperty("user.dir"));
+        Path outputDir = projectDir.resolve("benchmark-output");
+        System.setProperty("results.dir", outputDir.resolve("results").toString());
+        if (System.getProperty("load.stages") == null) {
+            // Read once when ContactFormLoadTest loads, which SyntheticSite.start triggers
+            System.setProperty("load.stages", "5x10s,20x10s");
+        }
+
+        SyntheticSite site = SyntheticSite.start(0);
+        List<Result> results = new ArrayList<>();
+        try {
+            for (String name : selected) {
+                System.out.println("\n⏱️ Benchmarking " + name + "…");
+                Result result = measure(name, TOOLS.get(name), site, outputDir.resolve(name));
+                System.out.printf("📈 %s: %d units in %.1f s (%.2f units/s), peak heap %d MB – %s%n",
+                        name, result.units, result.seconds, result.unitsPerSecond(),
+                        result.peakHeapBytes / (1024 * 1024), result.status);
+                results.add(result);
+            }
+        } finally {
+            site.stop();
+        }
+        saveReport(results, projectDir.resolve("SyntheticBenchmark.xlsx").toString());
+        appendHistory(results, projectDir.resolve("benchmark-history.tsv"));
+    }
+
+    /* ─────────────────────── Measuring ─────────────────────── */
+
+    /** Runs one tool with user.dir set to {@code outputDir}, restoring it afterwards. */
+    static Result measure(String name, Tool tool, SyntheticSite site, Path outputDir) throws InterruptedException {
+        Result result = new Result(name);
+        String projectDir = System.getProperty("user.dir");
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        AtomicLong peak = new AtomicLong(memory.getHeapMemoryUsage().getUsed());
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "heap-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(outputDir);
+            System.setProperty("user.dir", outputDir.toString());
+            result.units = tool.run(site);
+        } catch (Exception e) {
+            result.status = "FAILED: " + e;
+        } finally {
+            result.seconds = (System.nanoTime() - start) / 1e9;
+            System.setProperty("user.dir", projectDir);
+            sampler.interrupt();
+            sampler.join();
+            result.peakHeapBytes = Math.max(peak.get(), memory.getHeapMemoryUsage().getUsed());
+        }
+        return result;
+    }
+
+    /* ─────────────────────── Report ─────────────────────── */
+
+    static void saveReport(List<Result> results, String fileName) {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("Benchmark");
+            String[] headers = {"Tool", "Units", "Seconds", "Units/s", "Peak Heap MB", "Status"};
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < headers.length; i++) {
+                header.createCell(i).setCellValue(headers[i]);
+            }
+            int rowNum = 1;
+            for (Result r : results) {
+                Row row = sheet.createRow(rowNum++);
+                row.createCell(0).setCellValue(r.tool);
+                row.createCell(1).setCellValue(r.units);
+                row.createCell(2).setCellValue(Math.round(r.seconds * 10) / 10.0);
+                row.createCell(3).setCellValue(Math.round(r.unitsPerSecond() * 100) / 100.0);
+                row.createCell(4).setCellValue(r.peakHeapBytes / (1024 * 1024));
+                row.createCell(5).setCellValue(r.status);
+            }
+            try (FileOutputStream out = new FileOutputStream(fileName)) {
+                workbook.write(out);
+            }
+            System.out.println("\n✅ Benchmark report saved at: " + fileName);
+        } catch (Exception e) {
+            System.out.println("❌ Error saving benchmark report: " + e.getMessage());
+        }
+    }
+
+    // timestamp, tool, units, latency, jitter, seconds, units/s, peak heap MB, status
+    static void appendHistory(List<Result> results, Path file) throws IOException {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        List<String> lines = new ArrayList<>();
+        for (Result r : results) {
+            lines.add(String.join("\t", timestamp, r.tool, String.valueOf(r.units),
+                    String.valueOf(SyntheticSite.LATENCY_MS), String.valueOf(SyntheticSite.JITTER_MS),
+                    String.format(Locale.ROOT, "%.1f", r.seconds),
+                    String.format(Locale.ROOT, "%.2f", r.unitsPerSecond()),
+                    String.valueOf(r.peakHeapBytes / (1024 * 1024)), r.status.replace('\t', ' ')));
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        System.out.println("🗒️ Appended " + lines.size() + " lines to " + file);
+    }
+}
@@ -0,0 +1,424 @@
+/**
+ * SyntheticSite.java
+ *
+ * Embedded stand‑in for a client WordPress site, so the crawlers can be
+ * benchmarked and regression‑tested without touching production domains.
+ *
+ * Layout (N = site.pages, split evenly across three templates)
+ *   • /post-sitemap.xml, /page-sitemap.xml, /product-sitemap.xml – <loc> + <lastmod>
+ *   • /blog/post-i/, /company/page-i/, /product/item-i/           – pages
+ *   • /contact-us/ + CF7 feedback endpoint                         – ContactFormLoadTest stand‑in
+ *
+ * Every page links site.css (with an @font‑face for "Synthetic Sans", a tiny
+ * TrueType font generated from fixed values so every machine serves the same
+ * bytes) and app.js (uncompressed, no cache headers) and shows an
+ * oversized PNG hero plus a below‑the‑fold image without loading=lazy or
+ * dimensions. Per page, chosen deterministically from its index:
+ *   • console error   – error.js logs console.error and throws a TypeError
+ *   • 404 subresource – a script that does not exist
+ *   • CSP violation   – Content‑Security‑Policy: script-src 'self' + an inline script
+ *   • forbidden font  – inline style using "Neue Montreal"
+ *
+ * Usage
+ *   java SyntheticSite                          – serve on site.port until stopped
+ *   SyntheticSite.start(0) … stop()             – embedded, as SyntheticBenchmark does
+ *
+ * Tuning (system properties)
+ *   • site.port        – port for main (default 8090)
+ *   • site.pages       – total pages across all sitemaps (default 200)
+ *   • site.latencyMs   – minimum page response time (default 50)
+ *   • site.jitterMs    – random extra page delay (default 100)
+ *   • site.errorRate   – share of pages with console errors (default 0.2)
+ *   • site.missingRate – share of pages with a 404 script (default 0.1)
+ *   • site.cspRate     – share of pages with a CSP violation (default 0.1)
+ *   • site.oldFontRate – share of pages using the forbidden font (default 0.1)
+ */
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class SyntheticSite {
+
+    static final int PAGES = Integer.getInteger("site.pages", 200);
+    static final int LATENCY_MS = Integer.getInteger("site.latencyMs", 50);
+    static final int JITTER_MS = Integer.getInteger("site.jitterMs", 100);
+    static final double ERROR_RATE = Double.parseDouble(System.getProperty("site.errorRate", "0.2"));
+    static final double MISSING_RATE = Double.parseDouble(System.getProperty("site.missingRate", "0.1"));
+    static final double CSP_RATE = Double.parseDouble(System.getProperty("site.cspRate", "0.1"));
+    static final double OLD_FONT_RATE = Double.parseDouble(System.getProperty("site.oldFontRate", "0.1"));
+
+    private static final String[] TEMPLATES = {"post", "page", "product"};
+    private static final Pattern PAGE_PATH = Pattern.compile("^/(?:blog/post|company/page|product/item)-(\\d+)/$");
+    private static final LocalDate FIRST_LASTMOD = LocalDate.of(2024, 1, 1);
+
+    /** What one generated page carries; fixed per index so runs are comparable. */
+    static class Traits {
+        final boolean consoleError;
+        final boolean missingScript;
+        final boolean cspViolation;
+        final boolean oldFont;
+
+        Traits(int index) {
+            Random random = new Random(index);
+            consoleError = random.nextDouble() < ERROR_RATE;
+            missingScript = random.nextDouble() < MISSING_RATE;
+            cspViolation = random.nextDouble() < CSP_RATE;
+            oldFont = random.nextDouble() < OLD_FONT_RATE;
+        }
+    }
+
+    private final HttpServer server;
+    private final byte[] heroPng;
+    private final byte[] appJs;
+    private final byte[] fontTtf;
+    private final Set<Integer> requestedPages = ConcurrentHashMap.newKeySet();
+
+    private SyntheticSite(HttpServer server) throws IOException {
+        this.server = server;
+        this.heroPng = heroImage();
+        this.appJs = appScript();
+        this.fontTtf = syntheticFont();
+    }
+
+    /** Starts the site on localhost; port 0 picks a free port. */
+    static SyntheticSite start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        SyntheticSite site = new SyntheticSite(server);
+        server.createContext("/", site::handle);
+        ContactFormLoadTest.addStandIn(server, LATENCY_MS, JITTER_MS);
+        server.start();
+        System.out.println("🧪 Synthetic site at " + site.baseUrl() + " (" + PAGES + " pages)");
+        return site;
+    }
+
+    public static void main(String[] args) throws Exception {
+        SyntheticSite site = start(Integer.getInteger("site.port", 8090));
+        site.sitemapUrls().forEach(s -> System.out.println("🗺️ " + s));
+        Runtime.getRuntime().addShutdownHook(new Thread(site::stop));
+        Thread.currentThread().join();
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    List<String> sitemapUrls() {
+        List<String> urls = new ArrayList<>();
+        for (String template : TEMPLATES) {
+            urls.add(baseUrl() + "/" + template + "-sitemap.xml");
+        }
+        return urls;
+    }
+
+    /** Distinct pages requested since the last {@link #resetRequestedPages()}. */
+    int requestedPages() {
+        return requestedPages.size();
+    }
+
+    void resetRequestedPages() {
+        requestedPages.clear();
+    }
+
+    void stop() {
+        server.stop(0);
+    }
+
+    /* ─────────────────────── Routing ─────────────────────── */
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        Matcher page = PAGE_PATH.matcher(path);
+        if (page.matches() && Integer.parseInt(page.group(1)) < PAGES) {
+            delay();
+            int index = Integer.parseInt(page.group(1));
+            requestedPages.add(index);
+            Traits traits = new Traits(index);
+            if (traits.cspViolation) {
+                exchange.getResponseHeaders().set("Content-Security-Policy", "script-src 'self'");
+            }
+            send(exchange, 200, "text/html", pageHtml(index, traits).getBytes(StandardCharsets.UTF_8));
+        } else if (path.endsWith("-sitemap.xml") && Arrays.asList(TEMPLATES).contains(path.substring(1, path.indexOf('-')))) {
+            send(exchange, 200, "application/xml", sitemap(path.substring(1, path.indexOf('-'))).getBytes(StandardCharsets.UTF_8));
+        } else if ("/assets/site.css".equals(path)) {
+            exchange.getResponseHeaders().set("Cache-Control", "public, max-age=31536000");
+            exchange.getResponseHeaders().set("ETag", "\"site-css-1\"");
+            send(exchange, 200, "text/css", siteCss().getBytes(StandardCharsets.UTF_8));
+        } else if ("/assets/app.js".equals(path)) {
+            send(exchange, 200, "text/javascript", appJs);
+        } else if ("/assets/error.js".equals(path)) {
+            exchange.getResponseHeaders().set("Cache-Control", "public, max-age=31536000");
+            send(exchange, 200, "text/javascript", ("console.error('Synthetic failure on ' + location.pathname);\n"
+                    + "window.syntheticWidget.init();\n").getBytes(StandardCharsets.UTF_8));
+        } else if (("/assets/hero.png".equals(path) || "/assets/banner.png".equals(path))) {
+            exchange.getResponseHeaders().set("Cache-Control", "public, max-age=600");
+            send(exchange, 200, "image/png", heroPng);
+        } else if ("/assets/font.ttf".equals(path)) {
+            exchange.getResponseHeaders().set("Cache-Control", "public, max-age=31536000, immutable");
+            send(exchange, 200, "font/ttf", fontTtf);
+        } else {
+            send(exchange, 404, "text/html", "<h1>404 Not Found</h1>".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void delay() {
+        try {
+            Thread.sleep(LATENCY_MS + (JITTER_MS > 0 ? ThreadLocalRandom.current().nextInt(JITTER_MS) : 0));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType + ("image/png".equals(contentType)
+                || contentType.startsWith("font/") ? "" : "; charset=UTF-8"));
+        boolean head = "HEAD".equalsIgnoreCase(exchange.getRequestMethod());
+        exchange.sendResponseHeaders(status, head ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            if (!head) {
+                out.write(body);
+            }
+        }
+    }
+
+    /* ─────────────────────── Content ─────────────────────── */
+
+    private static String pagePath(int index) {
+        switch (TEMPLATES[index % TEMPLATES.length]) {
+            case "post":
+                return "/blog/post-" + index + "/";
+            case "page":
+                return "/company/page-" + index + "/";
+            default:
+                return "/product/item-" + index + "/";
+        }
+    }
+
+    private String sitemap(String template) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">\n");
+        for (int i = Arrays.asList(TEMPLATES).indexOf(template); i < PAGES; i += TEMPLATES.length) {
+            xml.append("  <url><loc>").append(baseUrl()).append(pagePath(i)).append("</loc><lastmod>")
+                    .append(FIRST_LASTMOD.plusDays(i)).append("</lastmod></url>\n");
+        }
+        return xml.append("</urlset>\n").toString();
+    }
+
+    private static String pageHtml(int index, Traits traits) {
+        String template = TEMPLATES[index % TEMPLATES.length];
+        String bodyClass = "post".equals(template) ? "single single-post postid-" + index
+                : "page".equals(template) ? "page page-template-default page-id-" + index
+                : "product-template-default single single-product postid-" + index;
+        StringBuilder html = new StringBuilder("<!DOCTYPE html><html lang=\"en\"><head><meta charset=\"utf-8\">")
+                .append("<title>Synthetic ").append(template).append(' ').append(index).append("</title>")
+                .append("<link rel=\"stylesheet\" href=\"/assets/site.css\">")
+                .append("<script src=\"/assets/app.js\"></script>");
+        if (traits.oldFont) {
+            html.append("<style>h1, p { font-family: \"Neue Montreal\", sans-serif; }</style>");
+        }
+        if (traits.consoleError) {
+            html.append("<script src=\"/assets/error.js\"></script>");
+        }
+        if (traits.missingScript) {
+            html.append("<script src=\"/assets/missing-").append(index).append(".js\"></script>");
+        }
+        html.append("</head><body class=\"").append(bodyClass).append("\">")
+                .append("<h1>Synthetic ").append(template).append(' ').append(index).append("</h1>")
+                .append("<p>Generated content for crawl benchmarking. Lorem ipsum dolor sit amet, consectetur ")
+                .append("adipiscing elit, sed do eiusmod tempor incididunt ut labore et dolore magna aliqua.</p>")
+                .append("<img src=\"/assets/hero.png\" alt=\"Hero\" width=\"400\" height=\"240\" style=\"width:400px;height:240px\">")
+                .append("<div style=\"height:2000px\"></div>")
+                .append("<img src=\"/assets/banner.png\" alt=\"Banner\" style=\"width:600px\">")
+                .append("<p><a href=\"/contact-us/\">Contact us</a></p>");
+        if (traits.cspViolation) {
+            html.append("<script>document.body.setAttribute('data-inline', 'ran');</script>");
+        }
+        return html.append("</body></html>").toString();
+    }
+
+    private String siteCss() {
+        return "@font-face { font-family: \"Synthetic Sans\"; src: url(/assets/font.ttf) format(\"truetype\"); font-display: swap; }\n"
+                + "body { font-family: \"Synthetic Sans\", Helvetica, sans-serif; margin: 0 auto; max-width: 960px; }\n"
+                + "h1 { font-size: 2rem; }\n";
+    }
+
+    // ~40 KB of plain script so uncompressed transfer shows up in the asset audit
+    private static byte[] appScript() {
+        StringBuilder js = new StringBuilder("(function () {\n  var registry = {};\n");
+        for (int i = 0; i < 400; i++) {
+            js.append("  registry['module").append(i).append("'] = function (input) { return String(input || '')")
+                    .append(".split('').reverse().join('') + '").append(i).append("'; };\n");
+        }
+        return js.append("  window.syntheticRegistry = registry;\n})();\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // 1600×960 gradient PNG, far larger than the 400 px it is shown at
+    private static byte[] heroImage() throws IOException {
+        BufferedImage image = new BufferedImage(1600, 960, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, new Color(30, 60, 120), 1600, 960, new Color(240, 140, 40)));
+        g.fillRect(0, 0, 1600, 960);
+        Random random = new Random(42);
+        for (int i = 0; i < 400; i++) {
+            g.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256), 90));
+            g.fillOval(random.nextInt(1600), random.nextInt(960), 20 + random.nextInt(120), 20 + random.nextInt(120));
+        }
+        g.dispose();
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        return png.toByteArray();
+    }
+
+    /*
+     * Minimal TrueType font with three glyphs: .notdef, a 400×700 block for
+     * printable ASCII and an empty space. Built from constants only, so it is
+     * byte‑identical everywhere; Java's font loader checks it at startup.
+     */
+    static byte[] syntheticFont() {
+        Map<String, byte[]> tables = new TreeMap<>();   // the table directory is sorted by tag
+
+        ByteBuffer glyf = ByteBuffer.allocate(36);      // glyph 1 only; .notdef and space are empty
+        glyf.putShort((short) 1).putShort((short) 50).putShort((short) 0).putShort((short) 450).putShort((short) 700);
+        glyf.putShort((short) 3).putShort((short) 0);   // last point of the contour, no instructions
+        glyf.put(new byte[]{1, 1, 1, 1});               // on‑curve points, 16‑bit deltas
+        for (int dx : new int[]{50, 0, 400, 0}) {
+            glyf.putShort((short) dx);
+        }
+        for (int dy : new int[]{0, 700, 0, -700}) {
+            glyf.putShort((short) dy);
+        }
+        tables.put("glyf", glyf.array());
+        tables.put("loca", ByteBuffer.allocate(16).putInt(0).putInt(0).putInt(36).putInt(36).array());
+
+        ByteBuffer head = ByteBuffer.allocate(54);
+        head.putInt(0x00010000).putInt(0x00010000).putInt(0).putInt(0x5F0F3CF5);
+        head.putShort((short) 0x000B).putShort((short) 1000).putLong(0).putLong(0);
+        head.putShort((short) 50).putShort((short) 0).putShort((short) 450).putShort((short) 700);
+        head.putShort((short) 0).putShort((short) 8).putShort((short) 2).putShort((short) 1).putShort((short) 0);
+        tables.put("head", head.array());
+
+        ByteBuffer hhea = ByteBuffer.allocate(36);
+        hhea.putInt(0x00010000).putShort((short) 800).putShort((short) -200).putShort((short) 0);
+        hhea.putShort((short) 500).putShort((short) 0).putShort((short) 50).putShort((short) 450);
+        hhea.putShort((short) 1).putShort((short) 0).putShort((short) 0).putLong(0).putShort((short) 0).putShort((short) 3);
+        tables.put("hhea", hhea.array());
+
+        ByteBuffer hmtx = ByteBuffer.allocate(12);
+        hmtx.putShort((short) 500).putShort((short) 0).putShort((short) 500).putShort((short) 50)
+                .putShort((short) 500).putShort((short) 0);
+        tables.put("hmtx", hmtx.array());
+
+        ByteBuffer maxp = ByteBuffer.allocate(32);
+        maxp.putInt(0x00010000).putShort((short) 3).putShort((short) 4).putShort((short) 1).putInt(0).putShort((short) 2);
+        tables.put("maxp", maxp.array());
+
+        ByteBuffer os2 = ByteBuffer.allocate(96);
+        os2.putShort((short) 4).putShort((short) 500).putShort((short) 400).putShort((short) 5).putShort((short) 0);
+        for (int value : new int[]{650, 600, 0, 75, 650, 600, 0, 350, 50, 300, 0}) {
+            os2.putShort((short) value);   // sub/superscript, strikeout, family class
+        }
+        os2.put(new byte[10]).putInt(1).putInt(0).putInt(0).putInt(0);   // panose, Basic Latin
+        os2.put("SYNT".getBytes(StandardCharsets.US_ASCII));
+        for (int value : new int[]{0x40, 0x20, 0x7E, 800, -200, 0, 800, 200}) {
+            os2.putShort((short) value);   // regular, char range, typo and win metrics
+        }
+        os2.putInt(1).putInt(0);
+        for (int value : new int[]{500, 700, 0, 0x20, 1}) {
+            os2.putShort((short) value);   // x‑height, cap height, default / break char, context
+        }
+        tables.put("OS/2", os2.array());
+
+        ByteBuffer post = ByteBuffer.allocate(32);
+        post.putInt(0x00030000).putInt(0).putShort((short) -100).putShort((short) 50).putInt(1);
+        tables.put("post", post.array());
+
+        // Windows Unicode cmap: space → glyph 2, '!'…'~' → glyph 1, everything else → .notdef
+        ByteBuffer cmap = ByteBuffer.allocate(12 + 40 + 2 * 94);
+        cmap.putShort((short) 0).putShort((short) 1).putShort((short) 3).putShort((short) 1).putInt(12);
+        cmap.putShort((short) 4).putShort((short) (40 + 2 * 94)).putShort((short) 0);
+        cmap.putShort((short) 6).putShort((short) 4).putShort((short) 1).putShort((short) 2);
+        for (int value : new int[]{0x20, 0x7E, 0xFFFF, 0, 0x20, 0x21, 0xFFFF, 2 - 0x20, 0, 1, 0, 4, 0}) {
+            cmap.putShort((short) value);   // end codes, pad, start codes, deltas, range offsets
+        }
+        for (int c = 0x21; c <= 0x7E; c++) {
+            cmap.putShort((short) 1);       // glyph array the second segment's range offset points at
+        }
+        tables.put("cmap", cmap.array());
+
+        String[] names = {"Synthetic Sans", "Regular", "Synthetic Sans Regular", "Synthetic Sans", "SyntheticSans-Regular"};
+        int[] nameIds = {1, 2, 3, 4, 6};
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        ByteBuffer name = ByteBuffer.allocate(6 + 12 * names.length);
+        name.putShort((short) 0).putShort((short) names.length).putShort((short) (6 + 12 * names.length));
+        for (int i = 0; i < names.length; i++) {
+            byte[] utf16 = names[i].getBytes(StandardCharsets.UTF_16BE);
+            name.putShort((short) 3).putShort((short) 1).putShort((short) 0x0409).putShort((short) nameIds[i])
+                    .putShort((short) utf16.length).putShort((short) strings.size());
+            strings.write(utf16, 0, utf16.length);
+        }
+        ByteArrayOutputStream nameTable = new ByteArrayOutputStream();
+        nameTable.write(name.array(), 0, name.capacity());
+        nameTable.write(strings.toByteArray(), 0, strings.size());
+        tables.put("name", nameTable.toByteArray());
+
+        int offset = 12 + 16 * tables.size();
+        int size = offset;
+        for (byte[] table : tables.values()) {
+            size += (table.length + 3) & ~3;
+        }
+        ByteBuffer font = ByteBuffer.allocate(size);
+        font.putInt(0x00010000).putShort((short) tables.size()).putShort((short) 128).putShort((short) 3)
+                .putShort((short) (16 * tables.size() - 128));
+        int headOffset = 0;
+        for (Map.Entry<String, byte[]> table : tables.entrySet()) {
+            font.put(table.getKey().getBytes(StandardCharsets.US_ASCII)).putInt((int) checksum(table.getValue()))
+                    .putInt(offset).putInt(table.getValue().length);
+            if ("head".equals(table.getKey())) {
+                headOffset = offset;
+            }
+            offset += (table.getValue().length + 3) & ~3;
+        }
+        for (byte[] table : tables.values()) {
+            font.put(table).position((font.position() + 3) & ~3);
+        }
+        font.putInt(headOffset + 8, (int) (0xB1B0AFBAL - checksum(font.array())));
+
+        try {
+            Font.createFont(Font.TRUETYPE_FONT, new ByteArrayInputStream(font.array()));
+        } catch (FontFormatException | IOException e) {
+            throw new IllegalStateException("Generated Synthetic Sans font is not valid TrueType", e);
+        }
+        return font.array();
+    }
+
+    // Sum of big‑endian 32‑bit words, the last one zero‑padded
+    private static long checksum(byte[] data) {
+        long sum = 0;
+        for (int i = 0; i < data.length; i += 4) {
+            long word = 0;
+            for (int j = 0; j < 4; j++) {
+                word = word << 8 | (i + j < data.length ? data[i + j] & 0xFF : 0);
+            }
+            sum = (sum + word) & 0xFFFFFFFFL;
+        }
+        return sum;
+    }
+}
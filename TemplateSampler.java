@@ -0,0 +1,243 @@
+/**
+ * TemplateSampler.java
+ *
+ * Template‑aware sampling for expensive per‑page audits: thousands of product
+ * or post URLs render from a handful of templates, so auditing a few pages
+ * per template finds the same problems at a fraction of the cost.
+ *
+ * Clustering
+ *   • Path pattern – sitemap file + URL path with variable segments (numbers,
+ *                    hashes, dates, and the last segment of nested paths)
+ *                    replaced by *, e.g. post-sitemap.xml /blog/*; numbered
+ *                    sitemap parts share one name (product-sitemap2.xml →
+ *                    product-sitemap*.xml)
+ *   • Fingerprint  – optional: the page's <body> classes without IDs
+ *                    (WordPress adds single‑product, page‑template‑… etc.),
+ *                    fetched over plain HTTP, so one‑off pages that share a
+ *                    path pattern still land in separate clusters
+ *
+ * Sampling: {@link #initialSample()} gives N evenly spread pages per cluster;
+ * once the tool marks a sampled page as failing, {@link #widen()} returns the
+ * rest of that cluster. The coverage sheet states, per cluster, how many
+ * pages were audited and why.
+ *
+ * Tuning (system properties)
+ *   • sample              – true to enable sampling in the tools that support it
+ *   • sample.perCluster   – pages audited per cluster before widening (default 2)
+ *   • sample.fingerprint  – true to also split clusters by body‑class fingerprint
+ */
+import org.apache.poi.ss.usermodel.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class TemplateSampler {
+
+    static final boolean ENABLED = Boolean.getBoolean("sample");
+    static final int PER_CLUSTER = Integer.getInteger("sample.perCluster", 2);
+    static final boolean FINGERPRINT = Boolean.getBoolean("sample.fingerprint");
+
+    private static final Pattern VARIABLE_SEGMENT = Pattern.compile(
+            "\\d+|[0-9a-f]{8,}|\\d{4}-\\d{2}(-\\d{2})?|[0-9a-f-]{36}", Pattern.CASE_INSENSITIVE);
+    private static final Pattern BODY_CLASS = Pattern.compile(
+            "<body[^>]*\\sclass\\s*=\\s*[\"']([^\"']*)[\"']", Pattern.CASE_INSENSITIVE);
+
+    /** Pages believed to share one template. */
+    static class Cluster {
+        final String key;
+        final List<String> urls = new ArrayList<>();
+        final Set<String> audited = new LinkedHashSet<>();
+        final Set<String> failing = new LinkedHashSet<>();
+        boolean widened;
+
+        Cluster(String key) {
+            this.key = key;
+        }
+    }
+
+    private final Map<String, Cluster> clusters = new LinkedHashMap<>();
+    private final Map<String, Cluster> clusterOf = new HashMap<>();
+
+    /**
+     * Clusters URLs by sitemap and path pattern (plus body‑class fingerprint
+     * when sample.fingerprint is set).
+     *
+     * @param urlsBySource Page URLs keyed by the sitemap (or list) they came from.
+     */
+    TemplateSampler(Map<String, List<String>> urlsBySource) {
+        Map<String, String> fingerprints = FINGERPRINT ? fingerprints(urlsBySource) : Collections.emptyMap();
+        for (Map.Entry<String, List<String>> source : urlsBySource.entrySet()) {
+            // product-sitemap.xml, product-sitemap2.xml … are parts of one list, not separate templates
+            String sourceName = source.getKey().replaceAll(".*/", "").replaceAll("(?<!\\d)\\d*(?=\\.xml(\\.gz)?$)", "*");
+            for (String url : source.getValue()) {
+                if (clusterOf.containsKey(url)) {
+                    continue;   // listed in an earlier sitemap – an empty cluster here would break the coverage sheet
+                }
+                String key = sourceName + " " + pathPattern(url);
+                String fingerprint = fingerprints.get(url);
+                if (fingerprint != null && !fingerprint.isEmpty()) {
+                    key += " [" + fingerprint + "]";
+                }
+                Cluster cluster = clusters.computeIfAbsent(key, Cluster::new);
+                cluster.urls.add(url);
+                clusterOf.put(url, cluster);
+            }
+        }
+        System.out.println("🧩 " + clusterOf.size() + " pages in " + clusters.size() + " template clusters");
+    }
+
+    /** URL path with variable segments replaced by *, e.g. /product/blue-shirt/ → /product/* */
+    static String pathPattern(String url) {
+        String path;
+        try {
+            path = URI.create(url).getPath();
+        } catch (IllegalArgumentException e) {
+            path = url;
+        }
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        StringBuilder pattern = new StringBuilder();
+        for (int i = 0; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            // The leaf of a nested path is the item slug; top‑level pages keep their own name
+            boolean leaf = i == segments.size() - 1 && segments.size() > 1;
+            pattern.append('/').append(leaf || VARIABLE_SEGMENT.matcher(segment).matches() ? "*" : segment);
+        }
+        return pattern.length() == 0 ? "/" : pattern.toString();
+    }
+
+    // Body classes without numeric (ID‑carrying) tokens, fetched concurrently over HTTP
+    private static Map<String, String> fingerprints(Map<String, List<String>> urlsBySource) {
+        HttpClient client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        Map<String, String> fingerprints = new ConcurrentHashMap<>();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (List<String> urls : urlsBySource.values()) {
+            for (String url : urls) {
+                pool.submit(() -> {
+                    try {
+                        String html = client.send(HttpRequest.newBuilder(URI.create(url))
+                                .timeout(Duration.ofSeconds(20)).GET().build(),
+                                HttpResponse.BodyHandlers.ofString()).body();
+                        fingerprints.put(url, bodyFingerprint(html));
+                    } catch (Exception e) {
+                        System.out.println("⚠️ Fingerprint failed: " + url + " - " + e.getMessage());
+                    }
+                    return null;
+                });
+            }
+        }
+        pool.shutdown();
+        try {
+            pool.awaitTermination(1, TimeUnit.HOURS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return fingerprints;
+    }
+
+    static String bodyFingerprint(String html) {
+        Matcher body = BODY_CLASS.matcher(html);
+        if (!body.find()) {
+            return "";
+        }
+        SortedSet<String> classes = new TreeSet<>();
+        for (String token : body.group(1).trim().split("\\s+")) {
+            if (!token.isEmpty() && !token.matches(".*\\d.*")) {
+                classes.add(token);
+            }
+        }
+        return String.join(" ", classes);
+    }
+
+    /* ─────────────────────── Sampling ─────────────────────── */
+
+    /** Up to sample.perCluster pages per cluster, spread evenly across it. */
+    List<String> initialSample() {
+        List<String> sample = new ArrayList<>();
+        for (Cluster cluster : clusters.values()) {
+            int n = Math.min(PER_CLUSTER, cluster.urls.size());
+            for (int i = 0; i < n; i++) {
+                String url = cluster.urls.get(n == 1 ? 0 : i * (cluster.urls.size() - 1) / (n - 1));
+                if (cluster.audited.add(url)) {
+                    sample.add(url);
+                }
+            }
+        }
+        return sample;
+    }
+
+    /** Key of the cluster a page belongs to, or null for URLs the sampler was not given. */
+    String clusterKey(String url) {
+        Cluster cluster = clusterOf.get(url);
+        return cluster == null ? null : cluster.key;
+    }
+
+    /** Records that an audited page failed, so its cluster is widened. */
+    synchronized void markFailed(String url) {
+        Cluster cluster = clusterOf.get(url);
+        if (cluster != null) {
+            cluster.failing.add(url);
+        }
+    }
+
+    /** Not‑yet‑audited pages of every cluster with a failure; empty when nothing is left to widen. */
+    synchronized List<String> widen() {
+        List<String> more = new ArrayList<>();
+        for (Cluster cluster : clusters.values()) {
+            if (cluster.failing.isEmpty()) {
+                continue;
+            }
+            for (String url : cluster.urls) {
+                if (cluster.audited.add(url)) {
+                    more.add(url);
+                    cluster.widened = true;
+                }
+            }
+        }
+        if (!more.isEmpty()) {
+            System.out.println("🔁 Widening to " + more.size() + " more pages in failing clusters");
+        }
+        return more;
+    }
+
+    /* ─────────────────────── Report ─────────────────────── */
+
+    /** Adds a "Sampling Coverage" sheet: one row per cluster. */
+    void writeCoverageSheet(Workbook workbook) {
+        Sheet sheet = workbook.createSheet("Sampling Coverage");
+        String[] headers = {"Cluster", "Pages", "Audited", "Coverage %", "Widened", "Failing Pages", "Example Page"};
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < headers.length; i++) {
+            header.createCell(i).setCellValue(headers[i]);
+        }
+        int rowNum = 1;
+        int audited = 0;
+        for (Cluster cluster : clusters.values()) {
+            Row row = sheet.createRow(rowNum++);
+            row.createCell(0).setCellValue(cluster.key);
+            row.createCell(1).setCellValue(cluster.urls.size());
+            row.createCell(2).setCellValue(cluster.audited.size());
+            row.createCell(3).setCellValue(Math.round(cluster.audited.size() * 100.0 / cluster.urls.size()));
+            row.createCell(4).setCellValue(cluster.widened ? "yes" : "no");
+            row.createCell(5).setCellValue(cluster.failing.size());
+            row.createCell(6).setCellValue(cluster.urls.get(0));
+            audited += cluster.audited.size();
+        }
+        System.out.println("📐 Audited " + audited + " of " + clusterOf.size() + " pages across "
+                + clusters.size() + " clusters");
+    }
+}
@@ -0,0 +1,217 @@
+/**
+ * ThirdPartyInventory.java
+ *
+ * Which external origins the crawled pages contact, and what they cost,
+ * built from the same per‑page DevTools events ConsoleErrorLogger records.
+ *
+ *   • First vs. third party – registrable domain (eTLD+1) of the request host
+ *                             compared with the page host, using a small
+ *                             built‑in list of multi‑label public suffixes
+ *   • Requests / bytes      – Network.requestWillBeSent + loadingFinished
+ *   • Blocking time         – only with -Dthirdparty.blocking=true: main‑thread
+ *                             tasks over 50 ms (timeline trace events, see
+ *                             {@link #TRACE_CATEGORIES}); the time beyond 50 ms
+ *                             is charged to the script that ran first inside
+ *                             the task. Off by default – tracing makes every
+ *                             page load slower and the performance log much larger
+ *
+ * Totals are kept per third‑party origin across the whole crawl and written
+ * as a ranked sheet (blocking time, then bytes).
+ */
+import org.apache.poi.ss.usermodel.*;
+import org.json.JSONObject;
+
+import java.net.URI;
+import java.util.*;
+
+public class ThirdPartyInventory {
+
+    /** Whether the driver records a timeline trace and the sheet reports blocking time. */
+    static final boolean BLOCKING = Boolean.getBoolean("thirdparty.blocking");
+
+    /** Passed to Chrome as perfLoggingPrefs.traceCategories so tasks and script runs are logged. */
+    static final String TRACE_CATEGORIES = "devtools.timeline";
+
+    // Long‑task threshold used by Total Blocking Time
+    private static final long LONG_TASK_US = 50_000;
+
+    // Common public suffixes with more than one label; anything else is treated as a single‑label TLD
+    private static final Set<String> MULTI_LABEL_SUFFIXES = new HashSet<>(Arrays.asList(
+            "co.uk", "org.uk", "ac.uk", "gov.uk", "me.uk", "ltd.uk", "plc.uk",
+            "com.au", "net.au", "org.au", "edu.au", "gov.au",
+            "co.in", "net.in", "org.in", "firm.in", "gen.in", "ind.in",
+            "co.nz", "org.nz", "net.nz", "co.za", "org.za",
+            "com.br", "net.br", "org.br", "com.mx", "com.ar", "com.co",
+            "co.jp", "ne.jp", "or.jp", "com.cn", "net.cn", "org.cn", "com.hk",
+            "com.sg", "com.my", "com.tr", "com.tw", "co.kr", "co.il",
+            "cloudfront.net", "herokuapp.com", "github.io", "azurewebsites.net",
+            "wpengine.com", "wpenginepowered.com", "appspot.com", "amazonaws.com"));
+
+    /** Running totals for one third‑party origin. */
+    static class OriginStats {
+        final String origin;
+        final String site;
+        final Set<String> pages = new HashSet<>();
+        String examplePage;
+        long requests;
+        long bytes;
+        long blockingMs;
+
+        OriginStats(String origin, String site) {
+            this.origin = origin;
+            this.site = site;
+        }
+    }
+
+    private final Map<String, OriginStats> origins = new HashMap<>();
+    private long totalBytes;
+    private int pagesSeen;
+
+    /* ─────────────────────── Per‑page capture ─────────────────────── */
+
+    /**
+     * Adds one page's requests and long tasks to the inventory.
+     *
+     * @param pageUrl Page the events belong to.
+     * @param events  Performance‑log messages ({"method": …, "params": …}).
+     */
+    void record(String pageUrl, List<JSONObject> events) {
+        String pageSite = site(host(pageUrl));
+        Map<String, String> urlByRequest = new HashMap<>();
+        List<long[]> tasks = new ArrayList<>();              // [start µs, duration µs]
+        TreeMap<Long, String> scriptRuns = new TreeMap<>();   // start µs → script URL
+        pagesSeen++;
+
+        for (JSONObject event : events) {
+            String method = event.optString("method");
+            JSONObject params = event.optJSONObject("params");
+            if (params == null) {
+                continue;
+            }
+            if ("Network.requestWillBeSent".equals(method)) {
+                JSONObject request = params.optJSONObject("request");
+                if (request != null) {
+                    urlByRequest.put(params.optString("requestId"), request.optString("url"));
+                }
+            } else if ("Network.loadingFinished".equals(method)) {
+                String url = urlByRequest.get(params.optString("requestId"));
+                long bytes = params.optLong("encodedDataLength", 0);
+                totalBytes += bytes;
+                OriginStats stats = url == null ? null : thirdParty(pageUrl, pageSite, url);
+                if (stats != null) {
+                    stats.requests++;
+                    stats.bytes += bytes;
+                }
+            } else if ("Tracing.dataCollected".equals(method)) {
+                String name = params.optString("name");
+                long ts = params.optLong("ts", 0);
+                if ("RunTask".equals(name) && params.optLong("dur", 0) > LONG_TASK_US) {
+                    tasks.add(new long[]{ts, params.optLong("dur", 0)});
+                } else if ("EvaluateScript".equals(name) || "FunctionCall".equals(name) || "v8.compile".equals(name)) {
+                    JSONObject data = params.optJSONObject("args") == null ? null
+                            : params.getJSONObject("args").optJSONObject("data");
+                    String url = data == null ? "" : data.optString("url", "");
+                    if (url.startsWith("http")) {
+                        scriptRuns.putIfAbsent(ts, url);
+                    }
+                }
+            }
+        }
+
+        // Charge each long task's excess to the first script that ran inside it
+        for (long[] task : tasks) {
+            Map.Entry<Long, String> first = scriptRuns.ceilingEntry(task[0]);
+            if (first != null && first.getKey() <= task[0] + task[1]) {
+                OriginStats stats = thirdParty(pageUrl, pageSite, first.getValue());
+                if (stats != null) {
+                    stats.blockingMs += (task[1] - LONG_TASK_US) / 1000;
+                }
+            }
+        }
+    }
+
+    // Stats bucket for a third‑party request URL, or null for first‑party / non‑HTTP URLs
+    private OriginStats thirdParty(String pageUrl, String pageSite, String requestUrl) {
+        if (!requestUrl.startsWith("http")) {
+            return null;
+        }
+        String host = host(requestUrl);
+        String site = site(host);
+        if (host.isEmpty() || site.equals(pageSite)) {
+            return null;
+        }
+        String origin = requestUrl.substring(0, requestUrl.indexOf("://") + 3) + host;
+        OriginStats stats = origins.computeIfAbsent(origin, o -> new OriginStats(o, site));
+        if (stats.pages.add(pageUrl) && stats.examplePage == null) {
+            stats.examplePage = pageUrl;
+        }
+        return stats;
+    }
+
+    /* ─────────────────────── Domains ─────────────────────── */
+
+    static String host(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host == null ? "" : host.toLowerCase();
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    /** Registrable domain (eTLD+1), e.g. cdn.example.co.uk → example.co.uk. */
+    static String site(String host) {
+        if (host.isEmpty() || host.matches("[\\d.]+") || host.startsWith("[")) {
+            return host;   // IP literal
+        }
+        String[] labels = host.split("\\.");
+        if (labels.length <= 2) {
+            return host;
+        }
+        String lastTwo = labels[labels.length - 2] + "." + labels[labels.length - 1];
+        int keep = MULTI_LABEL_SUFFIXES.contains(lastTwo) ? 3 : 2;
+        return String.join(".", Arrays.copyOfRange(labels, Math.max(0, labels.length - keep), labels.length));
+    }
+
+    /* ─────────────────────── Report ─────────────────────── */
+
+    /** Third‑party origins, most blocking time first (when measured), then most bytes. */
+    List<OriginStats> ranked() {
+        List<OriginStats> ranked = new ArrayList<>(origins.values());
+        ranked.sort(Comparator.comparingLong((OriginStats o) -> o.blockingMs).reversed()
+                .thenComparing(Comparator.comparingLong((OriginStats o) -> o.bytes).reversed()));
+        return ranked;
+    }
+
+    /** Writes the ranked inventory as a "Third Parties" sheet. */
+    void writeSheet(Workbook workbook) {
+        Sheet sheet = workbook.createSheet("Third Parties");
+        List<String> headers = new ArrayList<>(Arrays.asList("Rank", "Origin", "Site (eTLD+1)", "Pages",
+                "% of Pages", "Requests", "KB", "% of All Bytes", "Example Page"));
+        if (BLOCKING) {
+            headers.add(8, "Blocking Time (ms)");
+        }
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < headers.size(); i++) {
+            header.createCell(i).setCellValue(headers.get(i));
+        }
+        int rowNum = 1;
+        for (OriginStats o : ranked()) {
+            Row row = sheet.createRow(rowNum);
+            row.createCell(0).setCellValue(rowNum++);
+            row.createCell(1).setCellValue(o.origin);
+            row.createCell(2).setCellValue(o.site);
+            row.createCell(3).setCellValue(o.pages.size());
+            row.createCell(4).setCellValue(pagesSeen == 0 ? 0 : Math.round(o.pages.size() * 100.0 / pagesSeen));
+            row.createCell(5).setCellValue(o.requests);
+            row.createCell(6).setCellValue(o.bytes / 1024);
+            row.createCell(7).setCellValue(totalBytes == 0 ? 0 : Math.round(o.bytes * 1000.0 / totalBytes) / 10.0);
+            int col = 8;
+            if (BLOCKING) {
+                row.createCell(col++).setCellValue(o.blockingMs);
+            }
+            row.createCell(col).setCellValue(o.examplePage);
+        }
+        System.out.println("🌐 " + origins.size() + " third‑party origins across " + pagesSeen + " pages");
+    }
+}
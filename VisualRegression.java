@@ -0,0 +1,230 @@
+/**
+ * VisualRegression.java
+ *
+ * Offline alternative to the Applitools‑based VisualTest. Captures a full‑page
+ * screenshot of every URL at every configured breakpoint, compares it with the
+ * stored baseline using PixelDiff, and writes diff images plus a pass/fail
+ * report. No cloud account or network access beyond the audited site needed.
+ *
+ * Each URL is loaded once; breakpoints are switched with device‑metrics
+ * emulation (see ResponsiveCapture), and the report also flags breakpoints
+ * where the layout overflows horizontally.
+ *
+ * Layout on disk (project root)
+ *   • screenshots/                             – ScreenshotStore: captures + baselines
+ *   • visual-diffs/<page>/<breakpoint>-diff.png – red overlay for failures
+ *   • VisualRegressionReport.xlsx               – one row per page/breakpoint
+ *
+ * Usage
+ *   java VisualRegression [sitemap.xml | page URL]...
+ *   -Dvisual.updateBaselines=true  accept the current captures as new baselines
+ *   -Dvisual.threshold=0.001       max share of differing pixels that still passes
+ *   -Dvisual.tolerance=16          per‑channel colour tolerance (0‑255)
+ *   -Dvisual.keepRuns=30           runs kept in the store before old captures are collected
+ *
+ * Capturing runs in one browser; comparisons run concurrently on the
+ * fork‑join common pool, so a sitemap run is bounded by CPU, not a queue.
+ * A capture whose hash equals the baseline's passes without being decoded.
+ */
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import javax.imageio.ImageIO;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class VisualRegression {
+
+    // Mirrors the desktop/mobile spread VisualTest configures on the Ultrafast Grid
+    static final List<ResponsiveCapture.Breakpoint> BREAKPOINTS = Arrays.asList(
+            new ResponsiveCapture.Breakpoint("desktop-wide", 1440, 900, 1, false),
+            new ResponsiveCapture.Breakpoint("desktop", 1200, 800, 1, false),
+            new ResponsiveCapture.Breakpoint("tablet", 768, 1024, 2, true),
+            new ResponsiveCapture.Breakpoint("mobile-large", 414, 896, 2, true),
+            new ResponsiveCapture.Breakpoint("iphone-x", 375, 812, 3, true)
+    );
+
+    // Elements that change on every load (cookie banners, carousels, chat widgets)
+    static final List<String> IGNORE_SELECTORS = Arrays.asList(
+            "#onetrust-banner-sdk",
+            ".cookie-notice",
+            "iframe[src*='chat']"
+    );
+
+    static final File DIFF_DIR = new File(System.getProperty("user.dir"), "visual-diffs");
+
+    static final boolean UPDATE_BASELINES = Boolean.getBoolean("visual.updateBaselines");
+    static final double THRESHOLD = Double.parseDouble(System.getProperty("visual.threshold", "0.001"));
+    static final int TOLERANCE    = Integer.getInteger("visual.tolerance", 16);
+    static final int KEEP_RUNS    = Integer.getInteger("visual.keepRuns", 30);
+
+    public static void main(String[] args) throws Exception {
+        List<String> pageUrls = new ArrayList<>();
+        for (String arg : args.length > 0 ? Arrays.asList(args)
+                : Collections.singletonList("https://www.voltactivedata.com/")) {
+            if (arg.endsWith(".xml")) {
+                pageUrls.addAll(CSPChecker.readUrlsFromSitemap(arg));
+            } else {
+                pageUrls.add(arg);
+            }
+        }
+
+        System.setProperty("Webdriver.chrome.driver", System.getProperty("user.dir") + "/chromedriver");
+        ChromeOptions options = new ChromeOptions();
+        options.addArguments("--headless=new");
+        options.addArguments("--hide-scrollbars");
+        options.addArguments("--disable-dev-shm-usage");
+        ChromeDriver driver = new ChromeDriver(options);
+        ScreenshotStore store = ScreenshotStore.openDefault("visual-regression");
+        String runId = ScreenshotStore.newRunId();
+
+        // Keep at most one decoded image pair per core in memory while capturing continues
+        Semaphore inFlight = new Semaphore(Runtime.getRuntime().availableProcessors());
+        List<Future<String[]>> results = new ArrayList<>();
+        try {
+            for (String pageUrl : pageUrls) {
+                List<ResponsiveCapture.Capture> captures;
+                try {
+                    captures = ResponsiveCapture.captureAll(driver, pageUrl, BREAKPOINTS, IGNORE_SELECTORS);
+                } catch (Exception e) {
+                    System.out.println("❌ Capture failed: " + pageUrl + " - " + e.getMessage());
+                    results.add(CompletableFuture.completedFuture(
+                            new String[]{pageUrl, "", "ERROR", "", e.getMessage(), "", ""}));
+                    continue;
+                }
+                for (ResponsiveCapture.Capture capture : captures) {
+                    inFlight.acquire();
+                    results.add(CompletableFuture.supplyAsync(() -> {
+                        try {
+                            return evaluate(store, runId, pageUrl, capture);
+                        } finally {
+                            inFlight.release();
+                        }
+                    }));
+                }
+            }
+        } finally {
+            driver.quit();
+        }
+
+        saveReport(results, "VisualRegressionReport.xlsx");
+        store.gc(KEEP_RUNS);
+    }
+
+    /* ─────────────────────── Compare ─────────────────────── */
+
+    /**
+     * Compares one capture with its baseline (or stores it as the first baseline).
+     *
+     * @return Report row: URL, breakpoint, status, diff %, diff image path,
+     *         page height, overflowing elements.
+     */
+    static String[] evaluate(ScreenshotStore store, String runId, String pageUrl,
+                             ResponsiveCapture.Capture capture) {
+        String[] row = evaluateImage(store, runId, pageUrl, capture.breakpoint.name, capture.png, capture.ignoreRegions);
+        String[] full = Arrays.copyOf(row, 7);
+        full[5] = String.valueOf(capture.documentHeight);
+        full[6] = capture.hasHorizontalOverflow() ? String.valueOf(capture.overflowingElements) : "0";
+        if (capture.hasHorizontalOverflow()) {
+            System.out.println("⚠️ Horizontal overflow: " + pageUrl + " @ " + capture.breakpoint.name);
+        }
+        return full;
+    }
+
+    static String[] evaluateImage(ScreenshotStore store, String runId, String pageUrl,
+                                  String viewport, byte[] png, List<Rectangle> ignore) {
+        try {
+            String hash = store.record(runId, pageUrl, viewport, png);
+            String baselineHash = store.baseline(pageUrl, viewport);
+            if (UPDATE_BASELINES || baselineHash == null) {
+                store.setBaseline(pageUrl, viewport, hash);
+                System.out.println("📸 Baseline saved: " + pageUrl + " @ " + viewport);
+                return new String[]{pageUrl, viewport, "NEW BASELINE", "", ""};
+            }
+            if (hash.equals(baselineHash)) {
+                System.out.println("✅ Visual match (identical): " + pageUrl + " @ " + viewport);
+                return new String[]{pageUrl, viewport, "PASS", "0.000", ""};
+            }
+
+            BufferedImage baseline = ImageIO.read(store.objectPath(baselineHash).toFile());
+            BufferedImage actual = ImageIO.read(new ByteArrayInputStream(png));
+            if (baseline == null || actual == null) {
+                // ImageIO returns null instead of throwing for bytes it has no reader for
+                throw new IOException("unreadable " + (baseline == null ? "baseline " + baselineHash : "capture"));
+            }
+            PixelDiff.Result result = PixelDiff.compare(baseline, actual, ignore, TOLERANCE);
+            String percent = String.format("%.3f", result.diffRatio() * 100);
+
+            if (result.diffRatio() <= THRESHOLD) {
+                System.out.println("✅ Visual match: " + pageUrl + " @ " + viewport);
+                return new String[]{pageUrl, viewport, "PASS", percent, ""};
+            }
+
+            File diffFile = new File(new File(DIFF_DIR, slug(pageUrl)), viewport + "-diff.png");
+            diffFile.getParentFile().mkdirs();
+            ImageIO.write(result.diffImage, "png", diffFile);
+            System.out.println("❌ Visual difference (" + percent + "%): " + pageUrl + " @ " + viewport);
+            return new String[]{pageUrl, viewport, "FAIL", percent, diffFile.getPath()};
+        } catch (IOException e) {
+            System.out.println("❌ Compare failed: " + pageUrl + " @ " + viewport + " - " + e.getMessage());
+            return new String[]{pageUrl, viewport, "ERROR", "", e.getMessage()};
+        }
+    }
+
+    /** Turns a page URL into a stable directory name, e.g. www.site.com_about-us. */
+    static String slug(String pageUrl) {
+        try {
+            URL url = new URL(pageUrl);
+            String path = url.getPath().replaceAll("[^A-Za-z0-9]+", "-").replaceAll("^-|-$", "");
+            return url.getHost() + (path.isEmpty() ? "" : "_" + path);
+        } catch (IOException e) {
+            return pageUrl.replaceAll("[^A-Za-z0-9]+", "-");
+        }
+    }
+
+    /* ─────────────────────── Report ─────────────────────── */
+
+    static void saveReport(List<Future<String[]>> results, String fileName) throws Exception {
+        try (Workbook workbook = new XSSFWorkbook();
+             FileOutputStream out = new FileOutputStream(fileName)) {
+            Sheet sheet = workbook.createSheet("Visual Regression");
+            String[] headers = {"Page URL", "Breakpoint", "Status", "Diff %", "Diff Image",
+                    "Page Height", "Overflowing Elements"};
+            Row headerRow = sheet.createRow(0);
+            for (int i = 0; i < headers.length; i++) {
+                headerRow.createCell(i).setCellValue(headers[i]);
+            }
+
+            CellStyle failStyle = workbook.createCellStyle();
+            failStyle.setFillForegroundColor(IndexedColors.RED.getIndex());
+            failStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+            int rowNum = 1, failures = 0;
+            for (Future<String[]> future : results) {
+                String[] record = future.get();
+                Row row = sheet.createRow(rowNum++);
+                for (int i = 0; i < record.length; i++) {
+                    row.createCell(i).setCellValue(record[i]);
+                }
+                if (!"PASS".equals(record[2]) && !"NEW BASELINE".equals(record[2])) {
+                    row.getCell(2).setCellStyle(failStyle);
+                    failures++;
+                }
+                if (!record[6].isEmpty() && !"0".equals(record[6])) {
+                    row.getCell(6).setCellStyle(failStyle);
+                }
+            }
+            workbook.write(out);
+            System.out.println("✅ Visual report saved: " + fileName + " (" + failures + " failing of " + results.size() + ")");
+        }
+    }
+}
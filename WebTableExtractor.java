@@ -1,91 +1,287 @@
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.WebElement;
 import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
 import java.io.FileOutputStream;
-import java.io.IOException;
+import java.net.URL;
 import java.time.Duration;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.*;
 
 public class WebTableExtractor {
 
-    public static void main(String[] args) throws IOException {
-        // Set up ChromeDriver
-        System.setProperty("Webdriver.chrome.driver", System.getProperty("user.dir") + "chromedriver");
-        WebDriver driver = new ChromeDriver();
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
+    // Page and locators – override the page with the first program argument
+    static final String PAGE_URL = "https://europe.wordcamp.org/2025/attendees/";
+    static final String SECTION_LINKS_XPATH = "/html/body/div[1]/div[2]/div/div/div/ul/li/a[1]";
+    static final String TABLE_XPATH = "/html/body/div[2]/div/div/div[1]/div/div[1]/ul";
 
-        // Excel setup
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("Extracted Data");
-        int rowCount = 0;
+    static final int WORKERS = Integer.getInteger("extract.workers", 3);
+    static final int CHUNK_SIZE = 2000;       // rows pulled per executeScript round trip
 
-        try {
-            driver.get("https://europe.wordcamp.org/2025/attendees/"); // Replace with the actual page URL
-            Thread.sleep(2000); // Let page load
+    // Returns [name, href] for every section link in one call
+    private static final String SECTIONS_SCRIPT =
+            "var it = document.evaluate(arguments[0], document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);" +
+            "var out = [];" +
+            "for (var i = 0; i < it.snapshotLength; i++) {" +
+            "  var a = it.snapshotItem(i);" +
+            "  out.push([a.textContent.trim(), a.getAttribute('href') || '']);" +
+            "}" +
+            "return out;";
+
+    // Returns rows [offset, offset + limit) of a <ul>/<ol> (one row per <li>, one cell per text line)
+    // or a <table> (one cell per <td>/<th>); null when the container is missing
+    private static final String ROWS_SCRIPT =
+            "var root = document.evaluate(arguments[0], document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;" +
+            "if (!root) return null;" +
+            "var items = root.tagName === 'TABLE' ? root.querySelectorAll('tr') : root.children;" +
+            "var end = Math.min(items.length, arguments[1] + arguments[2]), rows = [];" +
+            "for (var i = arguments[1]; i < end; i++) {" +
+            "  var item = items[i], cells;" +
+            "  if (item.tagName === 'TR') {" +
+            "    cells = Array.prototype.map.call(item.cells, function (c) { return c.innerText.trim(); });" +
+            "  } else {" +
+            "    cells = item.innerText.split('\\n').map(function (s) { return s.trim(); }).filter(Boolean);" +
+            "  }" +
+            "  rows.push(cells);" +
+            "}" +
+            "return rows;";
+
+    // Cheap signature of the current list so we can tell when a tab switch replaced it
+    private static final String SIGNATURE_SCRIPT =
+            "var root = document.evaluate(arguments[0], document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;" +
+            "return root ? root.children.length + ':' + (root.firstElementChild ? root.firstElementChild.textContent : '') : '';";
+
+    /** One batch of rows for a section; {@code last} marks the section as done. */
+    static class RowBatch {
+        static final RowBatch END = new RowBatch(-1, "", Collections.emptyList(), true);
+
+        final int section;
+        final String sectionName;
+        final List<List<String>> rows;
+        final boolean last;
+
+        RowBatch(int section, String sectionName, List<List<String>> rows, boolean last) {
+            this.section = section;
+            this.sectionName = sectionName;
+            this.rows = rows;
+            this.last = last;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String pageUrl = args.length > 0 ? args[0] : PAGE_URL;
+        System.setProperty("Webdriver.chrome.driver", System.getProperty("user.dir") + "/chromedriver");
 
-            for (int i = 1; i <= 2; i++) {
-                String linkXPath = "/html/body/div[1]/div[2]/div/div/div/ul/li[" + i + "]/a[1]";
-                String tableXPath = "/html/body/div[2]/div/div/div[1]/div/div[1]/ul";
+        // Discover every section once; the list can then be split across workers
+        List<List<String>> sections;
+        WebDriver probe = newDriver();
+        try {
+            probe.get(pageUrl);
+            new WebDriverWait(probe, Duration.ofSeconds(10))
+                    .until(ExpectedConditions.presenceOfElementLocated(By.xpath(SECTION_LINKS_XPATH)));
+            sections = castRows(((JavascriptExecutor) probe).executeScript(SECTIONS_SCRIPT, SECTION_LINKS_XPATH));
+        } finally {
+            probe.quit();
+        }
+        System.out.println("Found " + sections.size() + " sections");
 
-                System.out.println("Trying to find section " + i);
+        // Rows stream through this queue to the single thread that owns the workbook
+        BlockingQueue<RowBatch> queue = new LinkedBlockingQueue<>(64);
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        Future<Integer> written = writer.submit(() -> writeWorkbook(queue, sections.size(), "TableData.xlsx"));
 
+        int workers = Math.max(1, Math.min(WORKERS, sections.size()));
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        BlockingQueue<Integer> pending = new LinkedBlockingQueue<>();
+        for (int i = 0; i < sections.size(); i++) {
+            pending.add(i);
+        }
+        List<Future<?>> workerResults = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            workerResults.add(pool.submit(() -> {
+                WebDriver driver = newDriver();
                 try {
-                    WebElement sectionLink = wait.until(ExpectedConditions.elementToBeClickable(By.xpath(linkXPath)));
-                    String sectionName = sectionLink.getText().isEmpty() ? "Section " + i : sectionLink.getText();
-
-                    sectionLink.click();
-                    Thread.sleep(1000); // wait for table to load
-
-                    // Write section name
-                    Row sectionRow = sheet.createRow(rowCount++);
-                    sectionRow.createCell(0).setCellValue(sectionName);
-
-                    try {
-                        List<WebElement> tableItems = driver.findElements(By.xpath(tableXPath));
-                        if (tableItems.isEmpty()) {
-                            Row row = sheet.createRow(rowCount++);
-                            row.createCell(0).setCellValue("table is not appear");
-                        } else {
-                            List<WebElement> listItems = driver.findElements(By.xpath(tableXPath + "/li"));
-                            for (WebElement item : listItems) {
-                                Row row = sheet.createRow(rowCount++);
-                                row.createCell(0).setCellValue(item.getText().trim());
-                            }
-                        }
-                    } catch (NoSuchElementException e) {
-                        Row row = sheet.createRow(rowCount++);
-                        row.createCell(0).setCellValue("table is not appear");
+                    Integer index;
+                    while ((index = pending.poll()) != null) {
+                        extractSection(driver, pageUrl, index, sections.get(index), queue, written);
                     }
+                } finally {
+                    driver.quit();
+                }
+                return null;
+            }));
+        }
+        pool.shutdown();
+        try {
+            for (Future<?> result : workerResults) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    // Sections this worker never reached are left out of the workbook
+                    System.out.println("Worker failed: " + e.getCause());
+                }
+            }
+            send(queue, RowBatch.END, written);
+        } catch (IllegalStateException writerStopped) {
+            /* written.get() below reports why. */
+        }
+
+        try {
+            System.out.println("Data written to TableData.xlsx (" + written.get() + " rows)");
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    // Hands a batch to the writer; gives up instead of blocking forever once the writer has stopped
+    static void send(BlockingQueue<RowBatch> queue, RowBatch batch, Future<?> writer) throws InterruptedException {
+        while (!queue.offer(batch, 1, TimeUnit.SECONDS)) {
+            if (writer.isDone()) {
+                throw new IllegalStateException("workbook writer stopped");
+            }
+        }
+    }
+
+    static WebDriver newDriver() {
+        ChromeOptions options = new ChromeOptions();
+        options.addArguments("--headless=new");
+        options.addArguments("--disable-dev-shm-usage");
+        return new ChromeDriver(options);
+    }
+
+    /** Opens one section and streams its rows in {@link #CHUNK_SIZE} batches. */
+    static void extractSection(WebDriver driver, String pageUrl, int index, List<String> section,
+                               BlockingQueue<RowBatch> queue, Future<?> writer) throws InterruptedException {
+        String sectionName = section.get(0).isEmpty() ? "Section " + (index + 1) : section.get(0);
+        String href = section.get(1);
+        JavascriptExecutor js = (JavascriptExecutor) driver;
+        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
+        System.out.println("Extracting section " + (index + 1) + ": " + sectionName);
+
+        try {
+            if (!href.isEmpty() && !href.startsWith("#") && !href.startsWith("javascript:")) {
+                // Real link – navigate straight to it instead of clicking through the landing page
+                driver.get(new URL(new URL(pageUrl), href).toString());
+            } else {
+                driver.get(pageUrl);
+                wait.until(ExpectedConditions.presenceOfElementLocated(By.xpath(SECTION_LINKS_XPATH)));
+                Object before = js.executeScript(SIGNATURE_SCRIPT, TABLE_XPATH);
+                driver.findElements(By.xpath(SECTION_LINKS_XPATH)).get(index).click();
+                try {
+                    new WebDriverWait(driver, Duration.ofSeconds(3))
+                            .pollingEvery(Duration.ofMillis(100))
+                            .until(d -> !before.equals(js.executeScript(SIGNATURE_SCRIPT, TABLE_XPATH)));
+                } catch (TimeoutException alreadyShown) {
+                    /* Tab was already active, list did not change – extract it as is. */
+                }
+            }
+            wait.until(ExpectedConditions.presenceOfElementLocated(By.xpath(TABLE_XPATH)));
 
-                    rowCount++; // space after each section
+            int offset = 0;
+            while (true) {
+                Object raw = js.executeScript(ROWS_SCRIPT, TABLE_XPATH, offset, CHUNK_SIZE);
+                List<List<String>> rows = raw == null ? Collections.emptyList() : castRows(raw);
+                offset += rows.size();
+                boolean last = rows.size() < CHUNK_SIZE;
+                send(queue, new RowBatch(index, sectionName, rows, last), writer);
+                if (last) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            if (writer.isDone()) {
+                throw new IllegalStateException("workbook writer stopped", e);
+            }
+            System.out.println("Section " + (index + 1) + " not found.");
+            send(queue, new RowBatch(index, sectionName,
+                    Collections.singletonList(Collections.singletonList("table is not appear")), true), writer);
+        }
+    }
 
-                } catch (Exception e) {
-                    System.out.println("Section " + i + " not found.");
+    /**
+     * Drains the queue into a streaming workbook, one sheet per section, until
+     * every section has sent its final batch.
+     *
+     * @return Number of data rows written.
+     */
+    static int writeWorkbook(BlockingQueue<RowBatch> queue, int sectionCount, String fileName) throws Exception {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(500);   // keep 500 rows per sheet in memory
+        Map<Integer, Sheet> sheets = new HashMap<>();
+        Map<Integer, Integer> nextRow = new HashMap<>();
+        Set<String> usedNames = new HashSet<>();
+        int finished = 0, total = 0;
+
+        try {
+            while (finished < sectionCount) {
+                RowBatch batch = queue.take();
+                if (batch == RowBatch.END) {
+                    break;
+                }
+                Sheet sheet = sheets.get(batch.section);
+                if (sheet == null) {
+                    sheet = workbook.createSheet(sheetName(batch.sectionName, usedNames));
+                    sheets.put(batch.section, sheet);
+                    nextRow.put(batch.section, 0);
+                }
+                int rowCount = nextRow.get(batch.section);
+                for (List<String> cells : batch.rows) {
                     Row row = sheet.createRow(rowCount++);
-                    row.createCell(0).setCellValue("Section " + i + " not found.");
-                    rowCount++;
+                    for (int c = 0; c < cells.size(); c++) {
+                        row.createCell(c).setCellValue(cells.get(c));
+                    }
+                }
+                nextRow.put(batch.section, rowCount);
+                total += batch.rows.size();
+                if (batch.last) {
+                    finished++;
+                    System.out.println("Section done: " + batch.sectionName + " (" + rowCount + " rows)");
                 }
             }
 
-            // Save Excel file
-            FileOutputStream outputStream = new FileOutputStream("TableData.xlsx");
-            workbook.write(outputStream);
+            try (FileOutputStream outputStream = new FileOutputStream(fileName)) {
+                workbook.write(outputStream);
+            }
+        } finally {
+            workbook.dispose();   // remove the temp files backing the streamed rows
             workbook.close();
-            outputStream.close();
-            System.out.println("Data written to TableData.xlsx");
+        }
+        return total;
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-        } finally {
-            driver.quit();
+    // Excel sheet names: max 31 chars, no []:*?/\ and unique within the workbook
+    private static String sheetName(String sectionName, Set<String> usedNames) {
+        String base = sectionName.replaceAll("[\\[\\]:*?/\\\\]", " ").trim();
+        if (base.isEmpty()) {
+            base = "Section";
+        }
+        base = base.length() > 28 ? base.substring(0, 28) : base;
+        String name = base;
+        for (int i = 2; !usedNames.add(name.toLowerCase()); i++) {
+            name = base + " " + i;
+        }
+        return name;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<List<String>> castRows(Object raw) {
+        List<List<String>> rows = new ArrayList<>();
+        for (Object row : (List<Object>) raw) {
+            List<String> cells = new ArrayList<>();
+            for (Object cell : (List<Object>) row) {
+                cells.add(String.valueOf(cell));
+            }
+            rows.add(cells);
         }
+        return rows;
     }
 }